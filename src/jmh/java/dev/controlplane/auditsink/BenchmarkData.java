@@ -0,0 +1,79 @@
+package dev.controlplane.auditsink;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Payloads and request stubs shared by the benchmarks. */
+public final class BenchmarkData {
+
+    public static final List<String> REDACT_KEYS = List.of("password", "token", "secret");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * {@code small}: a handful of flat fields; {@code large}: 200 fields, mostly 40-character strings
+     * (about 10 KB); {@code nested}: 32 levels of objects and arrays.
+     */
+    public static Map<String, Object> payload(String shape) {
+        return switch (shape) {
+            case "small" -> small();
+            case "large" -> large();
+            case "nested" -> nested(32);
+            default -> throw new IllegalArgumentException("Unknown payload shape: " + shape);
+        };
+    }
+
+    private static Map<String, Object> small() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("user", "alice");
+        m.put("password", "hunter2");
+        m.put("count", 42);
+        m.put("enabled", true);
+        m.put("note", "rotate credentials");
+        return m;
+    }
+
+    private static Map<String, Object> large() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            if (i % 25 == 0) {
+                m.put("credentials" + i, Map.of("token", "t-" + i, "scope", "deploy"));
+            } else {
+                m.put("field" + i, "value-" + i + "-abcdefghijklmnopqrstuvwxyz0123");
+            }
+        }
+        return m;
+    }
+
+    private static Map<String, Object> nested(int depth) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("level", depth);
+        m.put("secret", "s-" + depth);
+        m.put("tags", List.of("a", "b", depth));
+        if (depth > 0) {
+            List<Object> children = new ArrayList<>();
+            children.add(nested(depth - 1));
+            children.add(Map.of("leaf", depth));
+            m.put("children", children);
+        }
+        return m;
+    }
+
+    /** A request carrying only what the ingest path reads: client IP headers and the user agent. */
+    public static HttpServletRequest httpRequest(String remoteAddr, Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                BenchmarkData.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeader" -> headers.get((String) args[0]);
+                    case "getRemoteAddr" -> remoteAddr;
+                    default -> null;
+                });
+    }
+}
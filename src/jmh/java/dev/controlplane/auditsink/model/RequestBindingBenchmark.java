@@ -0,0 +1,74 @@
+package dev.controlplane.auditsink.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.controlplane.auditsink.BenchmarkData;
+import dev.controlplane.auditsink.service.RawPayloadDeserializer;
+import dev.controlplane.auditsink.service.RedactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding an ingest request body into {@link AuditEventRequest} with a mapper configured like the
+ * application's, with and without the raw payload deserializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBindingBenchmark {
+
+    @Param({"small", "large", "nested"})
+    public String shape;
+
+    @Param({"false", "true"})
+    public boolean rawPayload;
+
+    private ObjectReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws IOException {
+        JsonMapper.Builder builder = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        if (rawPayload) {
+            SimpleModule module = new SimpleModule("audit-raw-payload");
+            module.addDeserializer(AuditEventRequest.Payload.class,
+                    new RawPayloadDeserializer(new RedactionService(BenchmarkData.REDACT_KEYS, 4096)));
+            builder.addModule(module);
+        }
+        ObjectMapper mapper = builder.build();
+        reader = mapper.readerFor(AuditEventRequest.class);
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("schemaVersion", 1);
+        request.put("producerId", "producer-1");
+        request.put("occurredAtUtc", "2025-08-29T14:55:21Z");
+        request.put("action", "DEPLOY");
+        request.put("outcome", "SUCCESS");
+        request.put("subject", Map.of("type", "release", "id", "rel-20250829-001"));
+        request.put("actor", Map.of("id", "alice", "type", "USER", "roles", List.of("deployer"), "tenantId", "tenant-a"));
+        request.put("context", Map.of("appId", "payments", "trackId", "main", "releaseId", "2025.08.29"));
+        request.put("correlationId", "corr-7f3a");
+        request.put("traceId", "trace-91bc");
+        request.put("payload", Map.of("argsRedacted", BenchmarkData.payload(shape), "resultRedacted", Map.of("status", "ok")));
+        body = mapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public AuditEventRequest bind() throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,52 @@
+package dev.controlplane.auditsink.service;
+
+import dev.controlplane.auditsink.BenchmarkData;
+import dev.controlplane.auditsink.model.AuditEventRequest;
+import dev.controlplane.auditsink.util.HashingUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotencyKeyBenchmark {
+
+    private AuditIngestService service;
+    private AuditEventRequest request;
+    private HttpServletRequest http;
+    private String joined;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new AuditIngestService(null, null, registry, new IngestMetrics(registry, 100), null, null,
+                Optional.empty(), Optional.empty(), Optional.empty(), null, null);
+        request = new AuditEventRequest(1, "producer-1", OffsetDateTime.parse("2025-08-29T14:55:21Z"),
+                "DEPLOY", "SUCCESS",
+                new AuditEventRequest.Subject("release", "rel-20250829-001"),
+                new AuditEventRequest.Actor("alice", "USER", List.of("deployer"), "tenant-a"),
+                null, null, null, null, null, null, null, null);
+        http = BenchmarkData.httpRequest("10.0.0.7", Map.of("X-Forwarded-For", "203.0.113.9, 10.0.0.1"));
+        joined = "p:producer-1|ip:203.0.113.9|ts:2025-08-29T14:55:21Z|a:DEPLOY|st:release|si:rel-20250829-001";
+    }
+
+    @Benchmark
+    public String computeIdempotencyKey() {
+        return service.computeIdempotencyKey(request, http);
+    }
+
+    @Benchmark
+    public String sha256Base64() {
+        return HashingUtil.sha256Base64(joined);
+    }
+}
@@ -0,0 +1,58 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.controlplane.auditsink.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RedactionService#redactAndCap} on bound maps and, as raw payload mode does, on a parser
+ * positioned at the payload. With the default 4096-byte cap the large payload takes the truncation
+ * path; the 1 MiB cap makes every shape serialize in full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedactionBenchmark {
+
+    @Param({"small", "large", "nested"})
+    public String shape;
+
+    @Param({"4096", "1048576"})
+    public int maxJsonBytes;
+
+    private RedactionService service;
+    private Map<String, Object> payload;
+    private byte[] payloadJson;
+    private JsonFactory factory;
+
+    @Setup
+    public void setup() throws IOException {
+        service = new RedactionService(BenchmarkData.REDACT_KEYS, maxJsonBytes);
+        payload = BenchmarkData.payload(shape);
+        ObjectMapper mapper = new ObjectMapper();
+        payloadJson = mapper.writeValueAsBytes(payload);
+        factory = mapper.getFactory();
+    }
+
+    @Benchmark
+    public String redactMap() {
+        return service.redactAndCap(payload);
+    }
+
+    @Benchmark
+    public String redactStream() throws IOException {
+        try (JsonParser p = factory.createParser(payloadJson)) {
+            p.nextToken();
+            return service.redactAndCap(p);
+        }
+    }
+}
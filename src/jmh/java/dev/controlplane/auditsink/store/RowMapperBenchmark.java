@@ -0,0 +1,90 @@
+package dev.controlplane.auditsink.store;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading pages of events through {@link AuditEventRepository} from an in-memory H2 database,
+ * i.e. the query plus mapping every column of each row into an {@link AuditEventEntity}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({"20", "500"})
+    public int pageSize;
+
+    private AuditEventRepository repo;
+    private UUID knownId;
+
+    @Setup
+    public void setup() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__init.sql")).execute(ds);
+        repo = new AuditEventRepository(new NamedParameterJdbcTemplate(ds), 1000);
+
+        OffsetDateTime start = OffsetDateTime.of(2025, 8, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        List<AuditEventEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(entity(i, start.plusSeconds(i * 37L)));
+            if (rows.size() == 1000) {
+                repo.insertBatch(rows);
+                rows.clear();
+            }
+        }
+        knownId = repo.findAll(2500, 1, "occurred_at_utc", "asc").get(0).id;
+    }
+
+    private static AuditEventEntity entity(int i, OffsetDateTime at) {
+        AuditEventEntity e = new AuditEventEntity();
+        e.id = UUID.randomUUID();
+        e.occurredAtUtc = at;
+        e.action = "DEPLOY";
+        e.outcome = i % 10 == 0 ? "FAILURE" : "SUCCESS";
+        e.subjectType = "release";
+        e.subjectId = "rel-" + i;
+        e.actorId = "user-" + (i % 50);
+        e.actorType = "USER";
+        e.roles = "deployer,viewer";
+        e.tenantId = "tenant-" + (i % 5);
+        e.channel = "api";
+        e.ip = "10.0.0." + (i % 250);
+        e.userAgent = "curl/8.5.0";
+        e.correlationId = "corr-" + i;
+        e.traceId = "trace-" + i;
+        e.appId = "app-" + (i % 20);
+        e.trackId = "main";
+        e.releaseId = "2025.08." + (i % 30);
+        e.payloadHash = "sha256:" + i;
+        e.argsRedacted = "{\"user\":\"alice\",\"password\":\"***\",\"count\":" + i + "}";
+        e.resultRedacted = "{\"status\":\"ok\"}";
+        e.schemaVersion = 1;
+        e.idempotencyKey = "key-" + i;
+        return e;
+    }
+
+    @Benchmark
+    public List<AuditEventEntity> findPage() {
+        return repo.findAll(0, pageSize, "occurred_at_utc", "desc");
+    }
+
+    @Benchmark
+    public AuditEventEntity findById() {
+        return repo.findById(knownId).orElseThrow();
+    }
+}
@@ -0,0 +1,297 @@
+package dev.controlplane.auditsink.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.controlplane.auditsink.AuditSinkApplication;
+import dev.controlplane.auditsink.loadtest.LoadTestConfig.Op;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load generator. Boots the application in-process (H2 by default, or a Postgres given
+ * by {@code --jdbcUrl}) unless {@code --target} points at a running instance, drives a weighted mix
+ * of ingest and query requests from {@code --threads} workers, and writes latency percentiles and
+ * throughput per operation to {@code --reportDir}.
+ * <p>
+ * Without {@code --rate} every worker sends its next request as soon as the previous one returns
+ * (closed loop). With {@code --rate} requests are scheduled at a fixed total rate and latency is
+ * measured from the scheduled start, so a stalled server shows up as queueing delay instead of
+ * silently lowering the request rate.
+ */
+public final class LoadTest {
+
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /** Per-operation latency (microseconds) and outcome counters. */
+    private static final class OpStats {
+        final Recorder recorder = new Recorder(3);
+        final Histogram total = new Histogram(3);
+        final LongAdder errors = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ConfigurableApplicationContext app = null;
+        URI base;
+        if (config.target() != null) {
+            base = URI.create(config.target());
+        } else {
+            app = SpringApplication.run(AuditSinkApplication.class, appArgs(config));
+            base = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+        }
+        try {
+            run(config, base);
+        } finally {
+            if (app != null) app.close();
+        }
+    }
+
+    private static String[] appArgs(LoadTestConfig config) {
+        Map<String, String> props = new LinkedHashMap<>();
+        props.put("server.port", "0");
+        props.put("spring.flyway.enabled", "true");
+        props.put("audit.requestDump.mode", "off");
+        props.put("logging.level.dev.controlplane.auditsink", "WARN");
+        props.put("logging.level.org.springframework.jdbc", "WARN");
+        if ("h2".equals(config.db())) {
+            props.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+            props.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            props.put("spring.datasource.username", "sa");
+            props.put("spring.datasource.password", "");
+            props.put("spring.flyway.schemas", "");
+        } else {
+            props.put("spring.datasource.url", config.jdbcUrl());
+            props.put("spring.datasource.username", config.dbUser());
+            props.put("spring.datasource.password", config.dbPassword());
+        }
+        // passed-through arguments replace the defaults above rather than being appended to them
+        for (String arg : config.appArgs()) {
+            int eq = arg.indexOf('=');
+            props.put(arg.substring(2, eq < 0 ? arg.length() : eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        return props.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+    }
+
+    private static void run(LoadTestConfig config, URI base) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Map<Op, OpStats> stats = new EnumMap<>(Op.class);
+        for (Op op : config.mix().keySet()) stats.put(op, new OpStats());
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        // per-worker gap between scheduled requests when a total rate is set
+        long intervalNanos = config.rate() > 0 ? (long) (config.threads() * 1e9 / config.rate()) : 0;
+
+        System.out.printf("Load test against %s: threads=%d, warmup=%s, duration=%s, rate=%s, mix=%s, shape=%s, duplicateRatio=%.2f%n",
+                base, config.threads(), config.warmup(), config.duration(),
+                config.rate() > 0 ? config.rate() + "/s" : "closed-loop", config.mix(), config.shape(), config.duplicateRatio());
+
+        CountDownLatch done = new CountDownLatch(config.threads());
+        for (int w = 0; w < config.threads(); w++) {
+            Workload workload = new Workload(config, base, w);
+            long firstStart = start + (intervalNanos > 0 ? intervalNanos * w / config.threads() : 0);
+            Thread t = new Thread(() -> {
+                try {
+                    work(client, workload, stats, firstStart, intervalNanos, measureFrom, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-" + w);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        List<Map<String, Object>> intervals = new ArrayList<>();
+        long lastReport = measureFrom;
+        while (!done.await(200, TimeUnit.MILLISECONDS)) {
+            long now = System.nanoTime();
+            if (now > measureFrom && now - lastReport >= REPORT_INTERVAL_NANOS) {
+                intervals.add(interval(stats, (now - measureFrom) / 1e9, (now - lastReport) / 1e9));
+                lastReport = now;
+            }
+        }
+        long now = System.nanoTime();
+        intervals.add(interval(stats, (now - measureFrom) / 1e9, (now - lastReport) / 1e9));
+
+        double seconds = config.duration().toNanos() / 1e9;
+        writeReport(config, base, stats, intervals, seconds);
+    }
+
+    private static void work(HttpClient client, Workload workload, Map<Op, OpStats> stats,
+                             long firstStart, long intervalNanos, long measureFrom, long end) {
+        long scheduled = firstStart;
+        while (true) {
+            long intended;
+            if (intervalNanos > 0) {
+                intended = scheduled;
+                scheduled += intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= end) return;
+
+            Op op = workload.next();
+            int status;
+            try {
+                status = client.send(workload.request(op), HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (intended < measureFrom) continue;
+
+            OpStats s = stats.get(op);
+            s.statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+            if (status >= 200 && status < 300) {
+                s.recorder.recordValue(Math.max(1, (System.nanoTime() - intended) / 1000));
+            } else {
+                s.errors.increment();
+            }
+        }
+    }
+
+    /** Drains the recorders into the totals and prints one progress line. */
+    private static Map<String, Object> interval(Map<Op, OpStats> stats, double elapsed, double length) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("elapsedSeconds", round(elapsed));
+        StringBuilder line = new StringBuilder(String.format("[%6.1fs]", elapsed));
+        for (Map.Entry<Op, OpStats> e : stats.entrySet()) {
+            Histogram h = e.getValue().recorder.getIntervalHistogram();
+            e.getValue().total.add(h);
+            double throughput = length > 0 ? h.getTotalCount() / length : 0;
+            row.put(e.getKey().key(), Map.of(
+                    "throughputPerSecond", round(throughput),
+                    "p99Ms", round(h.getValueAtPercentile(99) / 1000.0)));
+            line.append(String.format("  %s %.0f/s p99=%.1fms", e.getKey().key(), throughput, h.getValueAtPercentile(99) / 1000.0));
+        }
+        System.out.println(line);
+        return row;
+    }
+
+    private static void writeReport(LoadTestConfig config, URI base, Map<Op, OpStats> stats,
+                                    List<Map<String, Object>> intervals, double seconds) throws IOException {
+        String commit = gitCommit();
+        String stamp = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").format(Instant.now().atZone(ZoneOffset.UTC));
+        Path dir = Path.of(config.reportDir());
+        Files.createDirectories(dir);
+        String name = "loadtest-" + stamp + "-" + commit;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("commit", commit);
+        report.put("finishedAt", Instant.now().toString());
+        report.put("target", config.target() != null ? base.toString() : "embedded/" + config.db());
+        report.put("config", Map.of(
+                "threads", config.threads(),
+                "durationSeconds", config.duration().toSeconds(),
+                "warmupSeconds", config.warmup().toSeconds(),
+                "rate", config.rate(),
+                "mix", config.mix(),
+                "shape", config.shape(),
+                "payloadBytes", Workload.payload(config.shape()).length(),
+                "duplicateRatio", config.duplicateRatio(),
+                "batchSize", config.batchSize(),
+                "appArgs", config.appArgs()));
+        report.put("environment", Map.of(
+                "java", System.getProperty("java.version"),
+                "cpus", Runtime.getRuntime().availableProcessors(),
+                "maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+
+        Map<String, Object> ops = new LinkedHashMap<>();
+        long totalRequests = 0;
+        StringBuilder summary = new StringBuilder(String.format("%n%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<Op, OpStats> e : stats.entrySet()) {
+            Histogram h = e.getValue().total;
+            long errors = e.getValue().errors.sum();
+            long count = h.getTotalCount() + errors;
+            totalRequests += count;
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("requests", count);
+            op.put("errors", errors);
+            op.put("throughputPerSecond", round(h.getTotalCount() / seconds));
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", ms(h, 50));
+            latency.put("p90", ms(h, 90));
+            latency.put("p99", ms(h, 99));
+            latency.put("p999", ms(h, 99.9));
+            latency.put("max", round(h.getMaxValue() / 1000.0));
+            latency.put("mean", round(h.getMean() / 1000.0));
+            op.put("latencyMs", latency);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            e.getValue().statuses.forEach((k, v) -> statuses.put(k < 0 ? "io_error" : String.valueOf(k), v.sum()));
+            op.put("statuses", statuses);
+            ops.put(e.getKey().key(), op);
+
+            summary.append(String.format("%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.getKey().key(), count, errors, h.getTotalCount() / seconds,
+                    ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1000.0));
+            try (PrintStream out = new PrintStream(dir.resolve(name + "-" + e.getKey().key() + ".hgrm").toFile(), StandardCharsets.UTF_8)) {
+                h.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        report.put("totalRequests", totalRequests);
+        report.put("throughputPerSecond", round(totalRequests / seconds));
+        report.put("ops", ops);
+        report.put("intervals", intervals);
+
+        Path json = dir.resolve(name + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+        System.out.print(summary);
+        System.out.printf("%nReport written to %s (percentile distributions in *.hgrm, in ms)%n", json);
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return round(h.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    private static String gitCommit() {
+        try {
+            Process p = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return p.waitFor() == 0 && !out.isEmpty() ? out : "unknown";
+        } catch (IOException | InterruptedException e) {
+            return "unknown";
+        }
+    }
+}
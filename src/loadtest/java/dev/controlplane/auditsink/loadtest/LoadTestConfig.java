@@ -0,0 +1,110 @@
+package dev.controlplane.auditsink.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test settings, parsed from {@code --name=value} arguments. Arguments starting with
+ * {@code --spring.}, {@code --audit.}, {@code --logging.} or {@code --server.} are passed through
+ * to the embedded application instead.
+ */
+record LoadTestConfig(
+        String target,
+        String db,
+        String jdbcUrl,
+        String dbUser,
+        String dbPassword,
+        String apiKey,
+        int threads,
+        Duration duration,
+        Duration warmup,
+        double rate,
+        Map<Op, Integer> mix,
+        String shape,
+        double duplicateRatio,
+        int batchSize,
+        String reportDir,
+        List<String> appArgs
+) {
+
+    enum Op {
+        INGEST, BATCH, LIST, SEARCH, STATS;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String body = arg.substring(2);
+            if (body.startsWith("spring.") || body.startsWith("audit.") || body.startsWith("logging.") || body.startsWith("server.")) {
+                appArgs.add(arg);
+                continue;
+            }
+            int eq = body.indexOf('=');
+            opts.put(eq < 0 ? body : body.substring(0, eq), eq < 0 ? "true" : body.substring(eq + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                opts.remove("target"),
+                opts.getOrDefault("db", "h2"),
+                opts.remove("jdbcUrl"),
+                opts.getOrDefault("dbUser", "audit_user"),
+                opts.getOrDefault("dbPassword", "change-me"),
+                opts.getOrDefault("apiKey", "dev-key"),
+                Integer.parseInt(opts.getOrDefault("threads", "16")),
+                DurationStyle.detectAndParse(opts.getOrDefault("duration", "60s")),
+                DurationStyle.detectAndParse(opts.getOrDefault("warmup", "10s")),
+                Double.parseDouble(opts.getOrDefault("rate", "0")),
+                parseMix(opts.getOrDefault("mix", "ingest:90,list:5,search:5")),
+                opts.getOrDefault("shape", "small"),
+                Double.parseDouble(opts.getOrDefault("duplicateRatio", "0.05")),
+                Integer.parseInt(opts.getOrDefault("batchSize", "100")),
+                opts.getOrDefault("reportDir", "target/loadtest"),
+                List.copyOf(appArgs));
+        for (String known : List.of("db", "dbUser", "dbPassword", "apiKey", "threads", "duration", "warmup", "rate",
+                "mix", "shape", "duplicateRatio", "batchSize", "reportDir")) {
+            opts.remove(known);
+        }
+        if (!opts.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + opts.keySet());
+        }
+        if (!List.of("h2", "postgres").contains(config.db())) {
+            throw new IllegalArgumentException("--db must be h2 or postgres");
+        }
+        if ("postgres".equals(config.db()) && config.jdbcUrl() == null && config.target() == null) {
+            throw new IllegalArgumentException("--db=postgres needs --jdbcUrl");
+        }
+        return config;
+    }
+
+    /** {@code ingest:90,list:5,search:5}: relative weights per operation. */
+    private static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("--mix entries must be op:weight, got: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) mix.put(Op.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+}
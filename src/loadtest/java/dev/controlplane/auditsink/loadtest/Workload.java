@@ -0,0 +1,132 @@
+package dev.controlplane.auditsink.loadtest;
+
+import dev.controlplane.auditsink.loadtest.LoadTestConfig.Op;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds the requests of one worker thread. Ingested events are unique unless picked as a
+ * duplicate, in which case a recently sent body is replayed verbatim so the server dedups it.
+ */
+final class Workload {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int APPS = 20;
+    private static final int TENANTS = 5;
+
+    private final LoadTestConfig config;
+    private final URI base;
+    private final int worker;
+    private final Op[] ops;
+    private final int[] cumulativeWeights;
+    private final String payloadJson;
+    private final String[] recent = new String[256];
+    private int recentCount;
+    private long sequence;
+
+    Workload(LoadTestConfig config, URI base, int worker) {
+        this.config = config;
+        this.base = base;
+        this.worker = worker;
+        this.ops = config.mix().keySet().toArray(Op[]::new);
+        this.cumulativeWeights = new int[ops.length];
+        int total = 0;
+        for (int i = 0; i < ops.length; i++) {
+            total += config.mix().get(ops[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.payloadJson = payload(config.shape());
+    }
+
+    Op next() {
+        int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < ops.length; i++) {
+            if (r < cumulativeWeights[i]) return ops[i];
+        }
+        return ops[ops.length - 1];
+    }
+
+    HttpRequest request(Op op) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return switch (op) {
+            case INGEST -> post("/audit/events", "application/json", event(rnd));
+            case BATCH -> {
+                StringBuilder body = new StringBuilder(config.batchSize() * 512);
+                for (int i = 0; i < config.batchSize(); i++) body.append(event(rnd)).append('\n');
+                yield post("/audit/events:batch", "application/x-ndjson", body.toString());
+            }
+            case LIST -> get("/audit/events?size=20");
+            case SEARCH -> get("/audit/events/search?size=20&appId=app-" + rnd.nextInt(APPS));
+            case STATS -> get("/audit/stats?granularity=hour&groupBy=appId");
+        };
+    }
+
+    private String event(ThreadLocalRandom rnd) {
+        if (recentCount > 0 && rnd.nextDouble() < config.duplicateRatio()) {
+            return recent[rnd.nextInt(Math.min(recentCount, recent.length))];
+        }
+        long n = sequence++;
+        String body = "{\"schemaVersion\":1,\"producerId\":\"loadtest-" + worker + "\""
+                + ",\"occurredAtUtc\":\"" + Instant.now().truncatedTo(ChronoUnit.MILLIS) + "\""
+                + ",\"action\":\"" + (n % 7 == 0 ? "EVIDENCE_REJECTED" : "EVIDENCE_APPROVED") + "\""
+                + ",\"outcome\":\"" + (n % 10 == 0 ? "FAILURE" : "SUCCESS") + "\""
+                + ",\"subject\":{\"type\":\"evidence\",\"id\":\"ev-" + worker + "-" + n + "\"}"
+                + ",\"actor\":{\"id\":\"user-" + rnd.nextInt(500) + "\",\"type\":\"USER\",\"roles\":[\"PO\"],\"tenantId\":\"tenant-" + rnd.nextInt(TENANTS) + "\"}"
+                + ",\"context\":{\"appId\":\"app-" + rnd.nextInt(APPS) + "\",\"trackId\":\"TR-1\",\"releaseId\":\"R-" + (n % 50) + "\"}"
+                + ",\"channel\":\"API\",\"correlationId\":\"corr-" + worker + "-" + n + "\",\"traceId\":\"trace-" + worker + "-" + n + "\""
+                + ",\"payload\":{\"argsRedacted\":" + payloadJson + ",\"resultRedacted\":{\"status\":\"ok\"},\"payloadHash\":\"sha256:" + n + "\"}}";
+        recent[recentCount++ % recent.length] = body;
+        return body;
+    }
+
+    private HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", contentType)
+                .header("X-Api-Key", config.apiKey())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(TIMEOUT)
+                .header("X-Api-Key", config.apiKey())
+                .GET()
+                .build();
+    }
+
+    /** Same shapes as the JMH benchmarks: a few flat fields, ~10 KB of fields, or 32 nested levels. */
+    static String payload(String shape) {
+        return switch (shape) {
+            case "small" -> "{\"user\":\"alice\",\"password\":\"hunter2\",\"count\":42,\"enabled\":true,\"note\":\"rotate credentials\"}";
+            case "large" -> {
+                StringBuilder sb = new StringBuilder("{");
+                for (int i = 0; i < 200; i++) {
+                    if (i > 0) sb.append(',');
+                    if (i % 25 == 0) {
+                        sb.append("\"credentials").append(i).append("\":{\"token\":\"t-").append(i).append("\",\"scope\":\"deploy\"}");
+                    } else {
+                        sb.append("\"field").append(i).append("\":\"value-").append(i).append("-abcdefghijklmnopqrstuvwxyz0123\"");
+                    }
+                }
+                yield sb.append('}').toString();
+            }
+            case "nested" -> nested(32);
+            default -> throw new IllegalArgumentException("--shape must be small, large or nested");
+        };
+    }
+
+    private static String nested(int depth) {
+        String node = "{\"level\":" + depth + ",\"secret\":\"s-" + depth + "\",\"tags\":[\"a\",\"b\"," + depth + "]";
+        if (depth > 0) {
+            node += ",\"children\":[" + nested(depth - 1) + ",{\"leaf\":" + depth + "}]";
+        }
+        return node + "}";
+    }
+}
@@ -2,8 +2,10 @@ package dev.controlplane.auditsink;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AuditSinkApplication {
     public static void main(String[] args) {
         SpringApplication.run(AuditSinkApplication.class, args);
@@ -0,0 +1,89 @@
+package dev.controlplane.auditsink.archive;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of archive segments kept as {@code manifest.json} in the {@link ArchiveStore}. Each entry
+ * records the segment's time range and, when they are few enough, the tenants and apps it holds,
+ * so queries only open segments that can contain matching rows.
+ */
+public class ArchiveManifest {
+
+    static final String NAME = "manifest.json";
+
+    /**
+     * @param tenants distinct tenant ids in the segment, or null when there were too many to list
+     * @param apps    distinct app ids in the segment, or null when there were too many to list
+     */
+    public record Entry(String file, Instant minTime, Instant maxTime, int rows, long bytes,
+                        Set<String> tenants, Set<String> apps, Instant createdAt) {
+
+        /** False only when the segment provably holds no row matching {@code filters}. */
+        boolean mayMatch(Map<String, Object> filters) {
+            Object from = filters.get("fromDate");
+            if (from != null && maxTime.isBefore(((OffsetDateTime) from).toInstant())) return false;
+            Object to = filters.get("toDate");
+            if (to != null && minTime.isAfter(((OffsetDateTime) to).toInstant())) return false;
+            Object tenant = filters.get("tenantId");
+            if (tenant != null && tenants != null && !tenants.contains(tenant)) return false;
+            Object app = filters.get("appId");
+            return app == null || apps == null || apps.contains(app);
+        }
+    }
+
+    private final ArchiveStore store;
+    private final ObjectMapper mapper;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile List<Entry> entries;
+
+    public ArchiveManifest(ArchiveStore store, ObjectMapper mapper) throws IOException {
+        this.store = store;
+        this.mapper = mapper;
+        byte[] json = store.read(NAME);
+        this.entries = json == null ? List.of() : List.copyOf(mapper.readValue(json, new TypeReference<List<Entry>>() {}));
+    }
+
+    /** Entries ordered by minimum time. */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public long totalRows() {
+        return entries.stream().mapToLong(Entry::rows).sum();
+    }
+
+    public long totalBytes() {
+        return entries.stream().mapToLong(Entry::bytes).sum();
+    }
+
+    void add(Entry entry) {
+        writeLock.lock();
+        try {
+            List<Entry> next = new ArrayList<>(entries);
+            next.add(entry);
+            next.sort(Comparator.comparing(Entry::minTime).thenComparing(Entry::file));
+            store.write(NAME, mapper.writeValueAsBytes(next));
+            entries = List.copyOf(next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update archive manifest", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package dev.controlplane.auditsink.archive;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.PageCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Answers searches against archived events. Segments are pruned through the manifest (time range,
+ * tenant, app), then only the filter columns are decoded until a row matches.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.archive.enabled", havingValue = "true")
+public class ArchiveQueryService {
+
+    private static final Map<String, String> FILTER_COLUMNS = Map.of(
+            "tenantId", "tenant_id",
+            "actorId", "actor_id",
+            "subjectId", "subject_id",
+            "action", "action",
+            "outcome", "outcome",
+            "correlationId", "correlation_id",
+            "traceId", "trace_id",
+            "appId", "app_id");
+
+    private final ArchiveStore store;
+    private final ArchiveManifest manifest;
+    private final Cache<String, byte[]> segments;
+    private final Cache<String, Long> counts;
+    private volatile List<ArchiveManifest.Entry> countedEntries;
+
+    public ArchiveQueryService(
+            ArchiveStore store,
+            ArchiveManifest manifest,
+            MeterRegistry registry,
+            @Value("${audit.archive.segmentCacheBytes:67108864}") long segmentCacheBytes
+    ) {
+        this.store = store;
+        this.manifest = manifest;
+        this.segments = Caffeine.newBuilder()
+                .maximumWeight(segmentCacheBytes)
+                .weigher((String k, byte[] v) -> v.length)
+                .recordStats()
+                .build();
+        this.counts = Caffeine.newBuilder().maximumSize(1000).build();
+        CaffeineCacheMetrics.monitor(registry, segments, "audit.archive.segments");
+    }
+
+    /** True when some archived segment may hold rows matching {@code filters}. */
+    public boolean mayMatch(Map<String, Object> filters) {
+        for (ArchiveManifest.Entry entry : manifest.entries()) {
+            if (entry.mayMatch(filters)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The first {@code limit} archived rows matching {@code filters} in the given order, optionally
+     * only those ordered strictly after {@code after} and before {@code bound}. The bound is the last
+     * row the caller already has from the hot table; rows past it cannot make the merged page.
+     */
+    public List<AuditEventEntity> top(Map<String, Object> filters, String sortBy, boolean descending,
+                                      PageCursor after, AuditEventEntity bound, int limit) {
+        Comparator<AuditEventEntity> order = ordering(sortBy, descending);
+        AuditEventEntity afterRow = after == null ? null : cursorRow(after);
+        boolean byTime = "occurred_at_utc".equals(sortBy);
+
+        List<ArchiveManifest.Entry> candidates = new ArrayList<>();
+        for (ArchiveManifest.Entry entry : manifest.entries()) {
+            if (!entry.mayMatch(filters)) continue;
+            if (byTime && afterRow != null && !mayFollow(entry, afterRow.occurredAtUtc.toInstant(), descending)) continue;
+            if (byTime && bound != null && !mayPrecede(entry, bound.occurredAtUtc.toInstant(), descending)) continue;
+            candidates.add(entry);
+        }
+        if (byTime) {
+            // visit the segments most likely to fill the page first so later ones can be skipped
+            candidates.sort(descending
+                    ? Comparator.comparing(ArchiveManifest.Entry::maxTime).reversed()
+                    : Comparator.comparing(ArchiveManifest.Entry::minTime));
+        }
+
+        // max-heap on the requested order holding the best `limit` rows seen so far
+        PriorityQueue<AuditEventEntity> best = new PriorityQueue<>(Math.max(1, limit), order.reversed());
+        Set<Object> seen = new HashSet<>();
+        for (ArchiveManifest.Entry entry : candidates) {
+            if (byTime && best.size() >= limit && !mayPrecede(entry, best.peek().occurredAtUtc.toInstant(), descending)) {
+                continue;
+            }
+            ColumnarSegment.Reader reader = reader(entry);
+            BitSet matches = matches(reader, filters);
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                // the ordering only reads id, time and the sort column, so rank a probe first
+                AuditEventEntity probe = reader.probe(i, sortBy);
+                if (afterRow != null && order.compare(probe, afterRow) <= 0) continue;
+                if (bound != null && order.compare(probe, bound) > 0) continue;
+                if (best.size() >= limit && order.compare(probe, best.peek()) >= 0) continue;
+                if (!seen.add(probe.id)) continue;
+                best.add(reader.row(i));
+                if (best.size() > limit) best.poll();
+            }
+        }
+        List<AuditEventEntity> out = new ArrayList<>(best);
+        out.sort(order);
+        return out;
+    }
+
+    /** Looks an archived event up by id; segments are scanned without an index, so this is slow. */
+    public Optional<AuditEventEntity> findById(UUID id) {
+        for (ArchiveManifest.Entry entry : manifest.entries()) {
+            ColumnarSegment.Reader reader = reader(entry);
+            UUID[] ids = reader.ids();
+            for (int i = 0; i < ids.length; i++) {
+                if (id.equals(ids[i])) return Optional.of(reader.row(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Number of archived rows matching {@code filters}; cached until the archive changes. */
+    public long count(Map<String, Object> filters) {
+        List<ArchiveManifest.Entry> entries = manifest.entries();
+        if (entries != countedEntries) {
+            counts.invalidateAll();
+            countedEntries = entries;
+        }
+        return counts.get(new TreeMap<>(filters).toString(), k -> {
+            long n = 0;
+            for (ArchiveManifest.Entry entry : entries) {
+                if (!entry.mayMatch(filters)) continue;
+                n += filters.isEmpty() ? entry.rows() : matches(reader(entry), filters).cardinality();
+            }
+            return n;
+        });
+    }
+
+    /**
+     * Sort order matching the database's for {@code sortBy}: nulls sort as the largest value, and
+     * UUIDs compare by their unsigned bytes, which is the order of their hex strings.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Comparator<AuditEventEntity> ordering(String sortBy, boolean descending) {
+        Function<AuditEventEntity, Comparable> key = switch (sortBy) {
+            case "id" -> e -> e.id.toString();
+            case "action" -> e -> e.action;
+            case "outcome" -> e -> e.outcome;
+            case "actor_id" -> e -> e.actorId;
+            case "subject_id" -> e -> e.subjectId;
+            case "tenant_id" -> e -> e.tenantId;
+            default -> e -> e.occurredAtUtc.toInstant();
+        };
+        Comparator<AuditEventEntity> asc = Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+        asc = asc.thenComparing(e -> e.id.toString());
+        return descending ? asc.reversed() : asc;
+    }
+
+    private static AuditEventEntity cursorRow(PageCursor cursor) {
+        AuditEventEntity e = new AuditEventEntity();
+        e.occurredAtUtc = cursor.occurredAtUtc();
+        e.id = cursor.id();
+        return e;
+    }
+
+    /** Whether the segment may hold rows ordered at or after {@code t}. */
+    private static boolean mayFollow(ArchiveManifest.Entry entry, Instant t, boolean descending) {
+        return descending ? !entry.minTime().isAfter(t) : !entry.maxTime().isBefore(t);
+    }
+
+    /** Whether the segment may hold rows ordered at or before {@code t}. */
+    private static boolean mayPrecede(ArchiveManifest.Entry entry, Instant t, boolean descending) {
+        return descending ? !entry.maxTime().isBefore(t) : !entry.minTime().isAfter(t);
+    }
+
+    private ColumnarSegment.Reader reader(ArchiveManifest.Entry entry) {
+        byte[] data = segments.get(entry.file(), file -> {
+            try {
+                byte[] bytes = store.read(file);
+                if (bytes == null) throw new IllegalStateException("Archive segment " + file + " is missing");
+                return bytes;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return new ColumnarSegment.Reader(data);
+    }
+
+    private static BitSet matches(ColumnarSegment.Reader reader, Map<String, Object> filters) {
+        BitSet rows = new BitSet(reader.rowCount());
+        rows.set(0, reader.rowCount());
+        for (Map.Entry<String, Object> f : filters.entrySet()) {
+            String column = FILTER_COLUMNS.get(f.getKey());
+            if (column != null) {
+                String[] values = reader.strings(column);
+                for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                    if (values == null || !f.getValue().equals(values[i])) rows.clear(i);
+                }
+            } else if (f.getKey().equals("fromDate") || f.getKey().equals("toDate")) {
+                Instant t = ((OffsetDateTime) f.getValue()).toInstant();
+                boolean from = f.getKey().equals("fromDate");
+                OffsetDateTime[] times = reader.occurredAt();
+                for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                    Instant v = times[i].toInstant();
+                    if (from ? v.isBefore(t) : v.isAfter(t)) rows.clear(i);
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,21 @@
+package dev.controlplane.auditsink.archive;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Blob storage for archive segments and the archive manifest. The local-disk implementation is
+ * used unless another {@code ArchiveStore} bean (for example an object-store client) is defined.
+ * Writes must replace an existing object atomically.
+ */
+public interface ArchiveStore {
+
+    void write(String name, byte[] data) throws IOException;
+
+    /** @return the object's bytes, or null if it does not exist */
+    byte[] read(String name) throws IOException;
+
+    List<String> list() throws IOException;
+
+    void delete(String name) throws IOException;
+}
@@ -0,0 +1,413 @@
+package dev.controlplane.auditsink.archive;
+
+import dev.controlplane.auditsink.store.AuditEventEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed columnar file holding a run of archived events.
+ * <pre>
+ * "AUDCOL01" | int rowCount | int columnCount
+ * per column: short nameLength | name | byte encoding | int rawLength | int compressedLength | deflated bytes
+ * </pre>
+ * Timestamps are delta-encoded varints, ids are raw 16-byte UUIDs and string columns are either
+ * dictionary-encoded (repetitive values such as action or tenant) or length-prefixed. Columns are
+ * decoded independently, so a scan only inflates the columns it filters on until a row matches.
+ */
+final class ColumnarSegment {
+
+    private static final byte[] MAGIC = "AUDCOL01".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte ENC_UUID = 1;
+    private static final byte ENC_TIME = 2;
+    private static final byte ENC_INT = 3;
+    private static final byte ENC_PLAIN = 4;
+    private static final byte ENC_DICT = 5;
+
+    private static final int MAX_DICT = 4096;
+
+    static final String ID = "id";
+    static final String OCCURRED_AT = "occurred_at_utc";
+    static final String SCHEMA_VERSION = "schema_version";
+
+    private record StringColumn(String name, Function<AuditEventEntity, String> get, BiConsumer<AuditEventEntity, String> set) {}
+
+    private static final List<StringColumn> STRING_COLUMNS = List.of(
+            new StringColumn("action", e -> e.action, (e, v) -> e.action = v),
+            new StringColumn("outcome", e -> e.outcome, (e, v) -> e.outcome = v),
+            new StringColumn("subject_type", e -> e.subjectType, (e, v) -> e.subjectType = v),
+            new StringColumn("subject_id", e -> e.subjectId, (e, v) -> e.subjectId = v),
+            new StringColumn("actor_id", e -> e.actorId, (e, v) -> e.actorId = v),
+            new StringColumn("actor_type", e -> e.actorType, (e, v) -> e.actorType = v),
+            new StringColumn("roles", e -> e.roles, (e, v) -> e.roles = v),
+            new StringColumn("tenant_id", e -> e.tenantId, (e, v) -> e.tenantId = v),
+            new StringColumn("channel", e -> e.channel, (e, v) -> e.channel = v),
+            new StringColumn("ip", e -> e.ip, (e, v) -> e.ip = v),
+            new StringColumn("user_agent", e -> e.userAgent, (e, v) -> e.userAgent = v),
+            new StringColumn("correlation_id", e -> e.correlationId, (e, v) -> e.correlationId = v),
+            new StringColumn("trace_id", e -> e.traceId, (e, v) -> e.traceId = v),
+            new StringColumn("app_id", e -> e.appId, (e, v) -> e.appId = v),
+            new StringColumn("track_id", e -> e.trackId, (e, v) -> e.trackId = v),
+            new StringColumn("release_id", e -> e.releaseId, (e, v) -> e.releaseId = v),
+            new StringColumn("jira_key", e -> e.jiraKey, (e, v) -> e.jiraKey = v),
+            new StringColumn("snow_sys_id", e -> e.snowSysId, (e, v) -> e.snowSysId = v),
+            new StringColumn("policy_decision_id", e -> e.policyDecisionId, (e, v) -> e.policyDecisionId = v),
+            new StringColumn("rule_path", e -> e.rulePath, (e, v) -> e.rulePath = v),
+            new StringColumn("payload_hash", e -> e.payloadHash, (e, v) -> e.payloadHash = v),
+            new StringColumn("args_redacted", e -> e.argsRedacted, (e, v) -> e.argsRedacted = v),
+            new StringColumn("result_redacted", e -> e.resultRedacted, (e, v) -> e.resultRedacted = v),
+            new StringColumn("error_type", e -> e.errorType, (e, v) -> e.errorType = v),
+            new StringColumn("error_message_hash", e -> e.errorMessageHash, (e, v) -> e.errorMessageHash = v),
+            new StringColumn("idempotency_key", e -> e.idempotencyKey, (e, v) -> e.idempotencyKey = v)
+    );
+
+    private ColumnarSegment() {
+    }
+
+    static byte[] encode(List<AuditEventEntity> rows) {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes(MAGIC);
+        writeInt(file, rows.size());
+        writeInt(file, 3 + STRING_COLUMNS.size());
+
+        Buf ids = new Buf(rows.size() * 16);
+        for (AuditEventEntity e : rows) {
+            ids.putLong(e.id.getMostSignificantBits());
+            ids.putLong(e.id.getLeastSignificantBits());
+        }
+        writeColumn(file, ID, ENC_UUID, ids);
+
+        Buf times = new Buf(rows.size() * 4);
+        long prevSecond = 0;
+        for (AuditEventEntity e : rows) {
+            long second = e.occurredAtUtc.toEpochSecond();
+            times.putZigZag(second - prevSecond);
+            times.putVarint(e.occurredAtUtc.getNano());
+            prevSecond = second;
+        }
+        writeColumn(file, OCCURRED_AT, ENC_TIME, times);
+
+        Buf versions = new Buf(rows.size());
+        for (AuditEventEntity e : rows) {
+            versions.putVarint(e.schemaVersion == null ? 0 : e.schemaVersion + 1L);
+        }
+        writeColumn(file, SCHEMA_VERSION, ENC_INT, versions);
+
+        for (StringColumn c : STRING_COLUMNS) {
+            encodeStrings(file, c, rows);
+        }
+        return file.toByteArray();
+    }
+
+    private static void encodeStrings(ByteArrayOutputStream file, StringColumn c, List<AuditEventEntity> rows) {
+        Map<String, Integer> dict = new LinkedHashMap<>();
+        for (AuditEventEntity e : rows) {
+            String v = c.get().apply(e);
+            if (v != null && !dict.containsKey(v)) {
+                if (dict.size() >= MAX_DICT || dict.size() > rows.size() / 2) {
+                    dict = null;
+                    break;
+                }
+                dict.put(v, dict.size());
+            }
+        }
+        Buf buf = new Buf(rows.size() * 8);
+        if (dict != null) {
+            buf.putVarint(dict.size());
+            for (String v : dict.keySet()) buf.putString(v);
+            for (AuditEventEntity e : rows) {
+                String v = c.get().apply(e);
+                buf.putVarint(v == null ? 0 : dict.get(v) + 1L);
+            }
+            writeColumn(file, c.name(), ENC_DICT, buf);
+        } else {
+            for (AuditEventEntity e : rows) buf.putNullableString(c.get().apply(e));
+            writeColumn(file, c.name(), ENC_PLAIN, buf);
+        }
+    }
+
+    private static void writeColumn(ByteArrayOutputStream file, String name, byte encoding, Buf raw) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw.bytes, 0, raw.size);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.size / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            writeShort(file, nameBytes.length);
+            file.writeBytes(nameBytes);
+            file.write(encoding);
+            writeInt(file, raw.size);
+            writeInt(file, compressed.size());
+            compressed.writeTo(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /**
+     * Decodes a segment column by column on demand. Not thread-safe; one reader per scan.
+     */
+    static final class Reader {
+        private record Block(byte encoding, int offset, int rawLength, int compressedLength) {}
+
+        private final byte[] file;
+        private final int rowCount;
+        private final Map<String, Block> blocks = new HashMap<>();
+        private final Map<String, Object> decoded = new HashMap<>();
+
+        Reader(byte[] file) {
+            this.file = file;
+            ByteBuffer buf = ByteBuffer.wrap(file);
+            byte[] magic = new byte[MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Not an archive segment");
+            }
+            this.rowCount = buf.getInt();
+            int columns = buf.getInt();
+            for (int i = 0; i < columns; i++) {
+                byte[] name = new byte[buf.getShort() & 0xFFFF];
+                buf.get(name);
+                byte encoding = buf.get();
+                int rawLength = buf.getInt();
+                int compressedLength = buf.getInt();
+                blocks.put(new String(name, StandardCharsets.US_ASCII), new Block(encoding, buf.position(), rawLength, compressedLength));
+                buf.position(buf.position() + compressedLength);
+            }
+        }
+
+        int rowCount() {
+            return rowCount;
+        }
+
+        UUID[] ids() {
+            return (UUID[]) decoded.computeIfAbsent(ID, k -> {
+                ByteBuffer b = ByteBuffer.wrap(inflate(k));
+                UUID[] out = new UUID[rowCount];
+                for (int i = 0; i < rowCount; i++) out[i] = new UUID(b.getLong(), b.getLong());
+                return out;
+            });
+        }
+
+        OffsetDateTime[] occurredAt() {
+            return (OffsetDateTime[]) decoded.computeIfAbsent(OCCURRED_AT, k -> {
+                Cursor c = new Cursor(inflate(k));
+                OffsetDateTime[] out = new OffsetDateTime[rowCount];
+                long second = 0;
+                for (int i = 0; i < rowCount; i++) {
+                    second += c.zigZag();
+                    out[i] = OffsetDateTime.ofInstant(Instant.ofEpochSecond(second, c.varint()), ZoneOffset.UTC);
+                }
+                return out;
+            });
+        }
+
+        Integer[] schemaVersions() {
+            return (Integer[]) decoded.computeIfAbsent(SCHEMA_VERSION, k -> {
+                Cursor c = new Cursor(inflate(k));
+                Integer[] out = new Integer[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    long v = c.varint();
+                    out[i] = v == 0 ? null : (int) (v - 1);
+                }
+                return out;
+            });
+        }
+
+        /** Values of a string column, or null when the segment has no such column. */
+        String[] strings(String column) {
+            if (!blocks.containsKey(column)) return null;
+            return (String[]) decoded.computeIfAbsent(column, k -> {
+                Block block = blocks.get(k);
+                Cursor c = new Cursor(inflate(k));
+                String[] out = new String[rowCount];
+                if (block.encoding() == ENC_DICT) {
+                    String[] dict = new String[(int) c.varint()];
+                    for (int i = 0; i < dict.length; i++) dict[i] = c.string();
+                    for (int i = 0; i < rowCount; i++) {
+                        long idx = c.varint();
+                        out[i] = idx == 0 ? null : dict[(int) idx - 1];
+                    }
+                } else {
+                    for (int i = 0; i < rowCount; i++) out[i] = c.nullableString();
+                }
+                return out;
+            });
+        }
+
+        /** Row {@code i} with only id, occurred_at_utc and {@code column} populated. */
+        AuditEventEntity probe(int i, String column) {
+            AuditEventEntity e = new AuditEventEntity();
+            e.id = ids()[i];
+            e.occurredAtUtc = occurredAt()[i];
+            for (StringColumn c : STRING_COLUMNS) {
+                if (c.name().equals(column)) {
+                    String[] values = strings(column);
+                    if (values != null) c.set().accept(e, values[i]);
+                    break;
+                }
+            }
+            return e;
+        }
+
+        AuditEventEntity row(int i) {
+            AuditEventEntity e = new AuditEventEntity();
+            e.id = ids()[i];
+            e.occurredAtUtc = occurredAt()[i];
+            e.schemaVersion = schemaVersions()[i];
+            for (StringColumn c : STRING_COLUMNS) {
+                String[] values = strings(c.name());
+                if (values != null) c.set().accept(e, values[i]);
+            }
+            return e;
+        }
+
+        private byte[] inflate(String column) {
+            Block block = blocks.get(column);
+            if (block == null) throw new IllegalStateException("Segment has no column " + column);
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(file, block.offset(), block.compressedLength());
+                byte[] raw = new byte[block.rawLength()];
+                int n = 0;
+                while (n < raw.length && !inflater.finished()) {
+                    n += inflater.inflate(raw, n, raw.length - n);
+                }
+                return raw;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt archive column " + column, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /** Growable write buffer with varint helpers. */
+    private static final class Buf {
+        byte[] bytes;
+        int size;
+
+        Buf(int initial) {
+            bytes = new byte[Math.max(16, initial)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (v >>> shift);
+        }
+
+        void putVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void putZigZag(long v) {
+            putVarint((v << 1) ^ (v >> 63));
+        }
+
+        void putString(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putVarint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void putNullableString(String s) {
+            if (s == null) {
+                putVarint(0);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            putVarint(b.length + 1L);
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+    }
+
+    /** Read position over an inflated column. */
+    private static final class Cursor {
+        private final byte[] bytes;
+        private int pos;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+        }
+
+        long zigZag() {
+            long v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String string() {
+            int len = (int) varint();
+            String s = new String(bytes, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+        String nullableString() {
+            long len = varint();
+            if (len == 0) return null;
+            String s = new String(bytes, pos, (int) len - 1, StandardCharsets.UTF_8);
+            pos += (int) len - 1;
+            return s;
+        }
+    }
+}
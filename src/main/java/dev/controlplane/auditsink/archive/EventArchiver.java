@@ -0,0 +1,123 @@
+package dev.controlplane.auditsink.archive;
+
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.PageCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves events older than {@code audit.archive.olderThan} out of {@code audit_event} into
+ * columnar segments. Rows are read oldest first in keyset pages of {@code rowsPerSegment}; each
+ * page becomes one segment, is recorded in the manifest and only then deleted from the table, so
+ * a crash can at worst leave a row both archived and hot (queries de-duplicate by id).
+ */
+@Component
+@ConditionalOnProperty(name = "audit.archive.enabled", havingValue = "true")
+public class EventArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(EventArchiver.class);
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    // beyond this many distinct values a segment is not pruned by tenant/app
+    private static final int MAX_LISTED_VALUES = 256;
+
+    private final AuditEventRepository repo;
+    private final ArchiveStore store;
+    private final ArchiveManifest manifest;
+    private final Duration olderThan;
+    private final int rowsPerSegment;
+    private final int maxSegmentsPerRun;
+
+    private final Counter archivedRows;
+    private final Counter archivedSegments;
+
+    public EventArchiver(
+            AuditEventRepository repo,
+            ArchiveStore store,
+            ArchiveManifest manifest,
+            MeterRegistry registry,
+            @Value("${audit.archive.olderThan:90d}") Duration olderThan,
+            @Value("${audit.archive.rowsPerSegment:20000}") int rowsPerSegment,
+            @Value("${audit.archive.maxSegmentsPerRun:50}") int maxSegmentsPerRun
+    ) {
+        this.repo = repo;
+        this.store = store;
+        this.manifest = manifest;
+        this.olderThan = olderThan;
+        this.rowsPerSegment = rowsPerSegment;
+        this.maxSegmentsPerRun = maxSegmentsPerRun;
+
+        this.archivedRows = registry.counter("audit.archive.rows.archived");
+        this.archivedSegments = registry.counter("audit.archive.segments.written");
+        Gauge.builder("audit.archive.rows", manifest, ArchiveManifest::totalRows)
+                .description("Events held in the archive")
+                .register(registry);
+        Gauge.builder("audit.archive.size", manifest, ArchiveManifest::totalBytes)
+                .baseUnit("bytes")
+                .description("Compressed size of all archive segments")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${audit.archive.initialDelay:PT1M}",
+               fixedDelayString = "${audit.archive.interval:PT1H}")
+    public void archive() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(olderThan);
+        Map<String, Object> filters = Map.of("toDate", cutoff);
+        PageCursor after = null;
+        try {
+            for (int segment = 0; segment < maxSegmentsPerRun; segment++) {
+                List<AuditEventEntity> rows = repo.searchAfter(filters, after, rowsPerSegment, false);
+                if (rows.isEmpty()) break;
+                archiveSegment(rows);
+                after = PageCursor.of(rows.get(rows.size() - 1));
+                if (rows.size() < rowsPerSegment) break;
+            }
+        } catch (Exception e) {
+            log.error("Archiving events older than {} failed: {}", cutoff, e.getMessage(), e);
+        }
+    }
+
+    private void archiveSegment(List<AuditEventEntity> rows) throws IOException {
+        byte[] data = ColumnarSegment.encode(rows);
+        Instant min = rows.get(0).occurredAtUtc.toInstant();
+        Instant max = rows.get(rows.size() - 1).occurredAtUtc.toInstant();
+        String file = "events-" + NAME_TIME.format(min) + "-" + UUID.randomUUID().toString().substring(0, 8) + ".seg";
+
+        store.write(file, data);
+        manifest.add(new ArchiveManifest.Entry(file, min, max, rows.size(), data.length,
+                distinct(rows, true), distinct(rows, false), Instant.now()));
+        int deleted = repo.deleteArchived(rows);
+
+        archivedRows.increment(rows.size());
+        archivedSegments.increment();
+        log.info("Archived {} events [{} .. {}] into {} ({} bytes, {} rows deleted)", rows.size(), min, max, file, data.length, deleted);
+    }
+
+    private static Set<String> distinct(List<AuditEventEntity> rows, boolean tenants) {
+        Set<String> values = new HashSet<>();
+        for (AuditEventEntity e : rows) {
+            String v = tenants ? e.tenantId : e.appId;
+            if (v != null && values.add(v) && values.size() > MAX_LISTED_VALUES) return null;
+        }
+        return values;
+    }
+}
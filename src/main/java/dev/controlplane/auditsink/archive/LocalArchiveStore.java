@@ -0,0 +1,69 @@
+package dev.controlplane.auditsink.archive;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link ArchiveStore} backed by a directory on local disk. Objects are written to a temporary
+ * file, forced and moved into place.
+ */
+public class LocalArchiveStore implements ArchiveStore {
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+
+    public LocalArchiveStore(Path dir) throws IOException {
+        this.dir = Files.createDirectories(dir.toAbsolutePath().normalize());
+    }
+
+    @Override
+    public void write(String name, byte[] data) throws IOException {
+        Path target = resolve(name);
+        Path tmp = target.resolveSibling(name + TMP_SUFFIX);
+        Files.write(tmp, data);
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public byte[] read(String name) throws IOException {
+        try {
+            return Files.readAllBytes(resolve(name));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> !n.endsWith(TMP_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        Files.deleteIfExists(resolve(name));
+    }
+
+    private Path resolve(String name) {
+        Path p = dir.resolve(name).normalize();
+        if (!dir.equals(p.getParent())) {
+            throw new IllegalArgumentException("Invalid archive object name: " + name);
+        }
+        return p;
+    }
+}
@@ -0,0 +1,34 @@
+package dev.controlplane.auditsink.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.controlplane.auditsink.archive.ArchiveManifest;
+import dev.controlplane.auditsink.archive.ArchiveStore;
+import dev.controlplane.auditsink.archive.LocalArchiveStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Archive tier wiring. Segments go to a local directory unless another {@link ArchiveStore}
+ * bean is defined.
+ */
+@Configuration
+@ConditionalOnProperty(name = "audit.archive.enabled", havingValue = "true")
+public class ArchiveConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ArchiveStore archiveStore(@Value("${audit.archive.dir:./data/archive}") String dir) throws IOException {
+        return new LocalArchiveStore(Path.of(dir));
+    }
+
+    @Bean
+    public ArchiveManifest archiveManifest(ArchiveStore store, ObjectMapper objectMapper) throws IOException {
+        return new ArchiveManifest(store, objectMapper);
+    }
+}
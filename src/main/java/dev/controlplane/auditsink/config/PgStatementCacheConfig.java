@@ -0,0 +1,58 @@
+package dev.controlplane.auditsink.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Server-side prepared statement settings for PgJDBC. Search SQL comes from a fixed registry, so
+ * every statement is worth preparing: with {@code audit.jdbc.postgres.prepareThreshold} (default 1)
+ * the driver switches to a named server statement on that execution, and keeps up to
+ * {@code preparedStatementCacheQueries} of them per connection, so repeated dashboard queries skip
+ * parse and plan. Values given in {@code spring.datasource.hikari.data-source-properties} win; other
+ * databases are left alone.
+ */
+@Configuration
+public class PgStatementCacheConfig {
+
+    @Bean
+    public static BeanPostProcessor pgStatementCache(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds)) return bean;
+                HikariDataSource hikari = hikari(ds);
+                if (hikari == null || hikari.getJdbcUrl() == null || !hikari.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+                    return bean;
+                }
+                apply(hikari, env);
+                return bean;
+            }
+        };
+    }
+
+    /** Adds the statement cache settings to a Postgres pool that has not been started yet. */
+    static void apply(HikariDataSource hikari, Environment env) {
+        Map<String, String> defaults = Map.of(
+                "prepareThreshold", env.getProperty("audit.jdbc.postgres.prepareThreshold", "1"),
+                "preparedStatementCacheQueries", env.getProperty("audit.jdbc.postgres.preparedStatementCacheQueries", "512"),
+                "preparedStatementCacheSizeMiB", env.getProperty("audit.jdbc.postgres.preparedStatementCacheSizeMiB", "10"));
+        defaults.forEach((k, v) -> {
+            if (!hikari.getDataSourceProperties().containsKey(k)) hikari.addDataSourceProperty(k, v);
+        });
+    }
+
+    private static HikariDataSource hikari(DataSource ds) {
+        try {
+            return ds.isWrapperFor(HikariDataSource.class) ? ds.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.controlplane.auditsink.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import dev.controlplane.auditsink.model.AuditEventRequest;
+import dev.controlplane.auditsink.service.RawPayloadDeserializer;
+import dev.controlplane.auditsink.service.RedactionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in raw payload mode: registers a Jackson module so request payloads are redacted while
+ * they are parsed instead of being bound into maps first.
+ */
+@Configuration
+@ConditionalOnProperty(name = "audit.ingest.rawPayload.enabled", havingValue = "true")
+public class RawPayloadConfig {
+
+    @Bean
+    public Module rawPayloadModule(RedactionService redactionService) {
+        SimpleModule module = new SimpleModule("audit-raw-payload");
+        module.addDeserializer(AuditEventRequest.Payload.class, new RawPayloadDeserializer(redactionService));
+        return module;
+    }
+}
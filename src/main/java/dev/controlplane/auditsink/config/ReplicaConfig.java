@@ -0,0 +1,81 @@
+package dev.controlplane.auditsink.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import dev.controlplane.auditsink.store.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas for the query endpoints. Each entry of {@code audit.replica.targets} gets its own
+ * read-only Hikari pool (pool name {@code replica-<name>}, exported as {@code hikaricp.*}) and the
+ * application DataSource is wrapped in a {@link ReplicaRoutingDataSource}, so ingest, Flyway and
+ * background jobs keep using the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "audit.replica.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaConfig.class);
+
+    public record Target(String name, String url, String username, String password, Integer maximumPoolSize,
+                         String lagQuery) {}
+
+    @Bean
+    public static BeanPostProcessor replicaRouting(Environment env, ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof ReplicaRoutingDataSource) return bean;
+                List<Target> targets = Binder.get(env).bind("audit.replica.targets", Bindable.listOf(Target.class))
+                        .orElse(List.of());
+                if (targets.isEmpty()) {
+                    log.warn("audit.replica.enabled is set but no audit.replica.targets are configured; reads use the primary");
+                    return bean;
+                }
+                MeterRegistry meters = registry.getObject();
+                List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+                for (int i = 0; i < targets.size(); i++) {
+                    Target t = targets.get(i);
+                    String name = t.name() != null ? t.name() : "replica" + (i + 1);
+                    replicas.add(new ReplicaRoutingDataSource.Replica(name, pool(name, t, env, meters), t.lagQuery(), meters));
+                }
+                Duration maxLag = env.getProperty("audit.replica.maxLag", Duration.class, Duration.ofSeconds(5));
+                Duration interval = env.getProperty("audit.replica.checkInterval", Duration.class, Duration.ofSeconds(5));
+                log.info("Routing query reads for DataSource '{}' to {} replica(s), max lag {}", beanName, replicas.size(), maxLag);
+                return new ReplicaRoutingDataSource(ds, replicas, maxLag, interval, meters);
+            }
+        };
+    }
+
+    private static HikariDataSource pool(String name, Target t, Environment env, MeterRegistry registry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica-" + name);
+        pool.setJdbcUrl(t.url());
+        pool.setUsername(t.username());
+        pool.setPassword(t.password());
+        pool.setMaximumPoolSize(t.maximumPoolSize() != null ? t.maximumPoolSize() : 10);
+        pool.setReadOnly(true);
+        // an unreachable replica must not stop startup; the health check keeps it out of rotation
+        pool.setInitializationFailTimeout(-1);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        if (t.url() != null && t.url().startsWith("jdbc:postgresql:")) {
+            PgStatementCacheConfig.apply(pool, env);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,87 @@
+package dev.controlplane.auditsink.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.controlplane.auditsink.store.ConcurrencyLimitedDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode ({@code spring.threads.virtual.enabled=true}, Java 21+). Spring Boot moves
+ * Tomcat, {@code @Scheduled} and task executors onto virtual threads; this wraps the pool in a
+ * {@link ConcurrencyLimitedDataSource} so that unbounded request threads queue for connections on a
+ * semaphore sized to the Hikari pool ({@code audit.jdbc.limiter.maxConcurrency} overrides it).
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    public VirtualThreadConfig() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; requests stay on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    @Bean
+    static Limiter jdbcConcurrencyLimiter(Environment env, ObjectProvider<MeterRegistry> registry) {
+        return new Limiter(env, registry);
+    }
+
+    /**
+     * Ordered so it wraps the pool before unordered post-processors run; read-replica routing then
+     * wraps the limited primary rather than putting replica reads behind the primary's permits. The
+     * bean method declares this type because ordering is read from it before instantiation.
+     */
+    static final class Limiter implements BeanPostProcessor, Ordered {
+
+        private final Environment env;
+        private final ObjectProvider<MeterRegistry> registry;
+
+        Limiter(Environment env, ObjectProvider<MeterRegistry> registry) {
+            this.env = env;
+            this.registry = registry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource ds) || bean instanceof ConcurrencyLimitedDataSource) return bean;
+            int max = env.getProperty("audit.jdbc.limiter.maxConcurrency", Integer.class, 0);
+            if (max <= 0) max = poolSize(ds);
+            Duration timeout = env.getProperty("audit.jdbc.limiter.acquireTimeout", Duration.class, Duration.ofSeconds(60));
+            log.info("Limiting DataSource '{}' to {} concurrent connections (acquire timeout {})", beanName, max, timeout);
+            return new ConcurrencyLimitedDataSource(ds, max, timeout, registry.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    private static int poolSize(DataSource ds) {
+        try {
+            // unset (-1) until the pool starts and applies its own default
+            if (ds.isWrapperFor(HikariDataSource.class)) {
+                int size = ds.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (size > 0) return size;
+            }
+        } catch (SQLException e) {
+            // fall through to Hikari's default
+        }
+        return 10;
+    }
+}
@@ -1,32 +1,58 @@
 package dev.controlplane.auditsink.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * {@code @Size} limits mirror the {@code audit_event} column widths so oversized fields are rejected
+ * with a 400 instead of failing the insert.
+ */
 public record AuditEventRequest(
         Integer schemaVersion,
         @NotBlank String producerId,
         @NotNull OffsetDateTime occurredAtUtc,
-        @NotBlank String action,
-        @NotBlank String outcome,
-        @NotNull Subject subject,
-        @NotNull Actor actor,
-        Context context,
-        String channel,
-        String correlationId,
-        String traceId,
-        Policy policy,
-        Payload payload,
-        ErrorInfo error,
+        @NotBlank @Size(max = 128) String action,
+        @NotBlank @Size(max = 32) String outcome,
+        @NotNull @Valid Subject subject,
+        @NotNull @Valid Actor actor,
+        @Valid Context context,
+        @Size(max = 32) String channel,
+        @Size(max = 256) String correlationId,
+        @Size(max = 256) String traceId,
+        @Valid Policy policy,
+        @Valid Payload payload,
+        @Valid ErrorInfo error,
         String idempotencyKey
 ) {
-    public record Subject(@NotBlank String type, @NotBlank String id) {}
-    public record Actor(@NotBlank String id, @NotBlank String type, List<String> roles, String tenantId) {}
-    public record Context(String appId, String trackId, String releaseId, String jiraKey, String snowSysId) {}
-    public record Policy(String decisionId, String rulePath) {}
-    public record Payload(Map<String,Object> argsRedacted, Map<String,Object> resultRedacted, String payloadHash) {}
-    public record ErrorInfo(String errorType, String errorMessageHash) {}
+    public record Subject(@NotBlank @Size(max = 64) String type, @NotBlank @Size(max = 256) String id) {}
+    public record Actor(@NotBlank @Size(max = 256) String id, @NotBlank @Size(max = 32) String type, List<String> roles,
+                        @Size(max = 128) String tenantId) {
+        /** Roles are stored comma-joined in a single {@code VARCHAR(1024)} column. */
+        @JsonIgnore
+        @AssertTrue(message = "roles must not exceed 1024 characters when joined")
+        public boolean isRolesWithinLimit() {
+            return roles == null || String.join(",", roles).length() <= 1024;
+        }
+    }
+    public record Context(@Size(max = 128) String appId, @Size(max = 128) String trackId, @Size(max = 128) String releaseId,
+                          @Size(max = 128) String jiraKey, @Size(max = 128) String snowSysId) {}
+    public record Policy(@Size(max = 256) String decisionId, @Size(max = 512) String rulePath) {}
+    /**
+     * {@code argsJson}/{@code resultJson} carry already-redacted JSON when raw payload mode binds the
+     * sub-documents by streaming them through the redactor instead of into maps.
+     */
+    public record Payload(Map<String,Object> argsRedacted, Map<String,Object> resultRedacted, @Size(max = 128) String payloadHash,
+                          @JsonIgnore String argsJson, @JsonIgnore String resultJson) {
+        public Payload(Map<String,Object> argsRedacted, Map<String,Object> resultRedacted, String payloadHash) {
+            this(argsRedacted, resultRedacted, payloadHash, null, null);
+        }
+    }
+    public record ErrorInfo(@Size(max = 256) String errorType, @Size(max = 128) String errorMessageHash) {}
 }
@@ -0,0 +1,14 @@
+package dev.controlplane.auditsink.model;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated page. Pass {@code nextCursor} back as {@code cursor} to fetch the following
+ * page; it is null on the last page.
+ */
+public record CursorPagedResponse<T>(
+    List<T> content,
+    int size,
+    String nextCursor,
+    boolean hasNext
+) {}
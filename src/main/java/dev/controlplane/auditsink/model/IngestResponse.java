@@ -1,3 +1,11 @@
 package dev.controlplane.auditsink.model;
 
+/**
+ * Result of ingesting one event. With {@code audit.ingest.mode=sync}, {@code eventId} is the stored
+ * event and {@code deduped} says whether it was stored by an earlier request. With {@code async} or
+ * {@code durable} ({@code 202}), only a duplicate answered from the recent-key cache comes back with
+ * {@code deduped=true}; otherwise {@code eventId} is the id the event will be stored under if it is
+ * new. If the database finds its idempotency key already taken, the event is dropped as a duplicate
+ * and that id never exists, even though the response said {@code deduped=false}.
+ */
 public record IngestResponse(String eventId, boolean deduped) {}
@@ -2,14 +2,21 @@ package dev.controlplane.auditsink.model;
 
 import java.util.List;
 
+/**
+ * Offset-paginated page. {@code totalElements}/{@code totalPages} are null when the total was
+ * not requested and estimates when {@code totalApproximate} is set; {@code hasNext} is always
+ * accurate.
+ */
 public record PagedResponse<T>(
     List<T> content,
     int page,
     int size,
-    long totalElements,
-    int totalPages,
+    Long totalElements,
+    Integer totalPages,
     boolean first,
-    boolean last
+    boolean last,
+    boolean hasNext,
+    boolean totalApproximate
 ) {
     public static <T> PagedResponse<T> of(List<T> content, int page, int size, long totalElements) {
         int totalPages = (int) Math.ceil((double) totalElements / size);
@@ -20,7 +27,18 @@ public record PagedResponse<T>(
             totalElements,
             totalPages,
             page == 0,
-            page >= totalPages - 1
+            page >= totalPages - 1,
+            page < totalPages - 1,
+            false
         );
     }
-}
\ No newline at end of file
+
+    public static <T> PagedResponse<T> approximate(List<T> content, int page, int size, long estimatedTotal, boolean hasNext) {
+        int totalPages = (int) Math.ceil((double) estimatedTotal / size);
+        return new PagedResponse<>(content, page, size, estimatedTotal, totalPages, page == 0, !hasNext, hasNext, true);
+    }
+
+    public static <T> PagedResponse<T> withoutTotal(List<T> content, int page, int size, boolean hasNext) {
+        return new PagedResponse<>(content, page, size, null, null, page == 0, !hasNext, hasNext, false);
+    }
+}
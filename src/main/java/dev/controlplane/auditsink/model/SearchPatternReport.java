@@ -0,0 +1,29 @@
+package dev.controlplane.auditsink.model;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Search filter combinations seen since {@code since}, slowest in total first. {@code index} is the
+ * existing index that best matches a pattern; {@code suggestedIndex} is set when no index leads with
+ * any of its equality columns, i.e. when the query most likely scans the table.
+ */
+public record SearchPatternReport(
+    OffsetDateTime since,
+    List<Pattern> patterns,
+    long untracked
+) {
+    public record Pattern(
+        String paging,
+        List<String> filters,
+        String sortBy,
+        long calls,
+        double meanMs,
+        double maxMs,
+        double totalMs,
+        long countCalls,
+        double countMeanMs,
+        String index,
+        String suggestedIndex
+    ) {}
+}
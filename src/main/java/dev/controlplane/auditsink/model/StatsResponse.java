@@ -0,0 +1,28 @@
+package dev.controlplane.auditsink.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Event counts per time bucket from the rollup table. Dimensions that were not grouped by are
+ * omitted from each bucket; {@code truncated} is set when the row limit cut the result short.
+ */
+public record StatsResponse(
+    String granularity,
+    OffsetDateTime from,
+    OffsetDateTime to,
+    List<Bucket> buckets,
+    boolean truncated
+) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Bucket(
+        OffsetDateTime bucketStart,
+        String tenantId,
+        String appId,
+        String action,
+        String outcome,
+        long count
+    ) {}
+}
@@ -0,0 +1,36 @@
+package dev.controlplane.auditsink.rollup;
+
+import dev.controlplane.auditsink.service.InvalidQueryException;
+
+import java.util.Locale;
+
+/** Bucket widths kept in {@code audit_event_rollup}, stored by their lower-case name. */
+public enum Granularity {
+    MINUTE(1),
+    HOUR(60),
+    DAY(1440);
+
+    final long minutes;
+
+    Granularity(long minutes) {
+        this.minutes = minutes;
+    }
+
+    /** Start of the bucket containing {@code epochMinute}, in epoch minutes. */
+    long truncate(long epochMinute) {
+        return Math.floorDiv(epochMinute, minutes) * minutes;
+    }
+
+    String column() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Granularity parse(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "minute" -> MINUTE;
+            case "hour" -> HOUR;
+            case "day" -> DAY;
+            default -> throw new InvalidQueryException("granularity must be one of minute, hour, day");
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package dev.controlplane.auditsink.rollup;
+
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.InsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts newly stored events per minute and (tenant, app, action, outcome) in memory and flushes
+ * the deltas into {@code audit_event_rollup} every {@code flushInterval}, adding them onto the
+ * minute, hour and day rows. The upsert is additive, so several instances can flush into the
+ * same table. Deltas of a failed flush are kept and retried with the next one, up to
+ * {@code maxPendingKeys} counters.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.rollup.enabled", havingValue = "true")
+public class RollupAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupAggregator.class);
+
+    private final RollupRepository repo;
+    private final ConcurrentHashMap<RollupKey, Long> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int maxPendingKeys;
+    private final Duration minuteRetention;
+    private long lastCleanupMinute;
+
+    private final Counter flushFailedCounter;
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    public RollupAggregator(
+            RollupRepository repo,
+            MeterRegistry registry,
+            @Value("${audit.rollup.maxPendingKeys:100000}") int maxPendingKeys,
+            @Value("${audit.rollup.minuteRetention:7d}") Duration minuteRetention
+    ) {
+        this.repo = repo;
+        this.maxPendingKeys = maxPendingKeys;
+        this.minuteRetention = minuteRetention;
+        this.flushFailedCounter = registry.counter("audit.rollup.flush.failed");
+        this.droppedCounter = registry.counter("audit.rollup.dropped");
+        this.flushTimer = Timer.builder("audit.rollup.flush")
+                .description("Time to flush pending rollup counters")
+                .register(registry);
+        Gauge.builder("audit.rollup.pending", pending, Map::size)
+                .description("Rollup counters waiting to be flushed")
+                .register(registry);
+    }
+
+    /** Counts one event that was stored as new. */
+    public void record(AuditEventEntity e) {
+        pending.merge(keyOf(e), 1L, Long::sum);
+    }
+
+    /**
+     * Counts the events of a batch insert that were stored as new, given the results returned by
+     * {@code AuditEventRepository.insertBatch}.
+     */
+    public void recordInserted(List<AuditEventEntity> entities, List<InsertResult> results) {
+        Map<RollupKey, Long> local = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            AuditEventEntity e = entities.get(i);
+            if (results.get(i).inserted()) local.merge(keyOf(e), 1L, Long::sum);
+        }
+        local.forEach((k, n) -> pending.merge(k, n, Long::sum));
+    }
+
+    private static RollupKey keyOf(AuditEventEntity e) {
+        return new RollupKey(Math.floorDiv(e.occurredAtUtc.toEpochSecond(), 60),
+                e.tenantId == null ? "" : e.tenantId,
+                e.appId == null ? "" : e.appId,
+                e.action,
+                e.outcome);
+    }
+
+    @Scheduled(initialDelayString = "${audit.rollup.flushInterval:PT10S}",
+               fixedDelayString = "${audit.rollup.flushInterval:PT10S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushTimer.record(this::flushPending);
+            cleanup();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        // remove() hands over each counter atomically; concurrent merges start a fresh one
+        Map<RollupKey, Long> minutes = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            Long n = pending.remove(key);
+            if (n != null) minutes.merge(key, n, Long::sum);
+        }
+        if (minutes.isEmpty()) return;
+
+        Map<Granularity, Map<RollupKey, Long>> deltas = new EnumMap<>(Granularity.class);
+        for (Granularity g : Granularity.values()) {
+            Map<RollupKey, Long> rows = new HashMap<>();
+            minutes.forEach((k, n) -> rows.merge(k.withBucket(g.truncate(k.bucketMinute())), n, Long::sum));
+            deltas.put(g, rows);
+        }
+        try {
+            repo.addCounts(deltas);
+            log.debug("Flushed rollups: minuteKeys={}", minutes.size());
+        } catch (Exception ex) {
+            flushFailedCounter.increment();
+            if (pending.size() + minutes.size() > maxPendingKeys) {
+                droppedCounter.increment(minutes.values().stream().mapToLong(Long::longValue).sum());
+                log.error("Rollup flush failed and pending counters are full, dropped {} counters: {}",
+                        minutes.size(), ex.getMessage());
+                return;
+            }
+            minutes.forEach((k, n) -> pending.merge(k, n, Long::sum));
+            log.warn("Rollup flush failed, {} counters kept for retry: {}", minutes.size(), ex.getMessage());
+        }
+    }
+
+    private void cleanup() {
+        if (minuteRetention.isZero() || minuteRetention.isNegative()) return;
+        long nowMinute = Math.floorDiv(System.currentTimeMillis(), 60_000L);
+        if (nowMinute - lastCleanupMinute < 60) return;
+        lastCleanupMinute = nowMinute;
+        try {
+            int deleted = repo.deleteBefore(Granularity.MINUTE, LocalDateTime.now(ZoneOffset.UTC).minus(minuteRetention));
+            if (deleted > 0) log.info("Deleted {} expired minute rollups", deleted);
+        } catch (Exception ex) {
+            log.warn("Rollup cleanup failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
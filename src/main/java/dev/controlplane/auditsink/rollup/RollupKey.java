@@ -0,0 +1,12 @@
+package dev.controlplane.auditsink.rollup;
+
+/**
+ * One rollup counter: a bucket start in epoch minutes plus the dimensions. Missing dimensions are
+ * stored as empty strings so they can be part of the table's primary key.
+ */
+record RollupKey(long bucketMinute, String tenantId, String appId, String action, String outcome) {
+
+    RollupKey withBucket(long minute) {
+        return new RollupKey(minute, tenantId, appId, action, outcome);
+    }
+}
@@ -0,0 +1,132 @@
+package dev.controlplane.auditsink.rollup;
+
+import dev.controlplane.auditsink.store.DatabaseDialect;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class RollupRepository {
+
+    static final List<String> DIMENSIONS = List.of("tenant_id", "app_id", "action", "outcome");
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private volatile DatabaseDialect dialect;
+
+    public RollupRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** One aggregated stats row; {@code dimensions} holds only the grouped columns. */
+    public record Row(LocalDateTime bucketStart, Map<String, String> dimensions, long count) {}
+
+    /**
+     * Adds {@code deltas} onto the stored counters in one transaction, creating missing rows. Rows
+     * are written in key order so concurrent flushes from several instances cannot deadlock.
+     */
+    @Transactional
+    public void addCounts(Map<Granularity, Map<RollupKey, Long>> deltas) {
+        deltas.forEach(this::addCounts);
+    }
+
+    private void addCounts(Granularity granularity, Map<RollupKey, Long> deltas) {
+        if (deltas.isEmpty()) return;
+        String sql = dialect() == DatabaseDialect.POSTGRES
+                ? """
+                  INSERT INTO audit_event_rollup(granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+                  VALUES (:granularity, :bucket_start, :tenant_id, :app_id, :action, :outcome, :event_count)
+                  ON CONFLICT (granularity, bucket_start, tenant_id, app_id, action, outcome)
+                  DO UPDATE SET event_count = audit_event_rollup.event_count + EXCLUDED.event_count
+                  """
+                : """
+                  MERGE INTO audit_event_rollup r
+                  USING (VALUES (CAST(:granularity AS VARCHAR(8)), CAST(:bucket_start AS TIMESTAMP),
+                                 CAST(:tenant_id AS VARCHAR(128)), CAST(:app_id AS VARCHAR(128)),
+                                 CAST(:action AS VARCHAR(128)), CAST(:outcome AS VARCHAR(32)), CAST(:event_count AS BIGINT)))
+                        AS s(granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+                  ON r.granularity = s.granularity AND r.bucket_start = s.bucket_start AND r.tenant_id = s.tenant_id
+                     AND r.app_id = s.app_id AND r.action = s.action AND r.outcome = s.outcome
+                  WHEN MATCHED THEN UPDATE SET event_count = r.event_count + s.event_count
+                  WHEN NOT MATCHED THEN INSERT (granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+                       VALUES (s.granularity, s.bucket_start, s.tenant_id, s.app_id, s.action, s.outcome, s.event_count)
+                  """;
+        MapSqlParameterSource[] batch = deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(KEY_ORDER))
+                .map(d -> new MapSqlParameterSource()
+                        .addValue("granularity", granularity.column())
+                        .addValue("bucket_start", toTimestamp(d.getKey().bucketMinute()))
+                        .addValue("tenant_id", d.getKey().tenantId())
+                        .addValue("app_id", d.getKey().appId())
+                        .addValue("action", d.getKey().action())
+                        .addValue("outcome", d.getKey().outcome())
+                        .addValue("event_count", d.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate(sql, batch);
+    }
+
+    /**
+     * Counts per bucket in {@code [from, to)}, summed over the dimensions not listed in
+     * {@code groupBy}. {@code filters} maps dimension columns to required values.
+     */
+    public List<Row> query(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                           Map<String, String> filters, List<String> groupBy, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.column())
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT bucket_start");
+        for (String column : groupBy) sql.append(", ").append(column);
+        sql.append(", SUM(event_count) AS event_count FROM audit_event_rollup")
+           .append(" WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to");
+        for (Map.Entry<String, String> f : filters.entrySet()) {
+            sql.append(" AND ").append(f.getKey()).append(" = :").append(f.getKey());
+            params.addValue(f.getKey(), f.getValue());
+        }
+        String grouping = String.join(", ", groupBy);
+        sql.append(" GROUP BY bucket_start").append(groupBy.isEmpty() ? "" : ", " + grouping)
+           .append(" ORDER BY bucket_start").append(groupBy.isEmpty() ? "" : ", " + grouping)
+           .append(" LIMIT :limit");
+        return jdbc.query(sql.toString(), params, (rs, rowNum) -> {
+            Map<String, String> dims = new LinkedHashMap<>();
+            for (String column : groupBy) dims.put(column, rs.getString(column));
+            return new Row(rs.getObject("bucket_start", LocalDateTime.class), dims, rs.getLong("event_count"));
+        });
+    }
+
+    /** Deletes buckets of {@code granularity} that start before {@code cutoff}. */
+    public int deleteBefore(Granularity granularity, LocalDateTime cutoff) {
+        return jdbc.update("DELETE FROM audit_event_rollup WHERE granularity = :granularity AND bucket_start < :cutoff",
+                new MapSqlParameterSource()
+                        .addValue("granularity", granularity.column())
+                        .addValue("cutoff", cutoff));
+    }
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparingLong(RollupKey::bucketMinute)
+            .thenComparing(RollupKey::tenantId)
+            .thenComparing(RollupKey::appId)
+            .thenComparing(RollupKey::action)
+            .thenComparing(RollupKey::outcome);
+
+    private static LocalDateTime toTimestamp(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect d = dialect;
+        if (d == null) {
+            d = DatabaseDialect.detect(jdbc.getJdbcTemplate().getDataSource());
+            dialect = d;
+        }
+        return d;
+    }
+}
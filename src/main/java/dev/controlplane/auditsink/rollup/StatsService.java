@@ -0,0 +1,110 @@
+package dev.controlplane.auditsink.rollup;
+
+import dev.controlplane.auditsink.model.StatsResponse;
+import dev.controlplane.auditsink.service.InvalidQueryException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Serves {@code GET /audit/stats} from {@code audit_event_rollup}. */
+@Service
+public class StatsService {
+
+    private static final Map<String, String> DIMENSIONS = Map.of(
+            "tenantId", "tenant_id",
+            "appId", "app_id",
+            "action", "action",
+            "outcome", "outcome");
+
+    private final RollupRepository repo;
+    private final int maxRows;
+
+    public StatsService(RollupRepository repo, @Value("${audit.stats.maxRows:10000}") int maxRows) {
+        this.repo = repo;
+        this.maxRows = maxRows;
+    }
+
+    public StatsResponse stats(
+            String granularity,
+            OffsetDateTime from,
+            OffsetDateTime to,
+            String tenantId,
+            String appId,
+            String action,
+            String outcome,
+            List<String> groupBy) {
+
+        Granularity g = Granularity.parse(granularity);
+        LocalDateTime end = to != null ? utc(to) : LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime start = from != null ? utc(from) : end.minus(defaultWindow(g));
+        if (!start.isBefore(end)) {
+            throw new InvalidQueryException("from must be before to");
+        }
+        start = bucketStart(g, start);
+
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (tenantId != null) filters.put("tenant_id", tenantId);
+        if (appId != null) filters.put("app_id", appId);
+        if (action != null) filters.put("action", action);
+        if (outcome != null) filters.put("outcome", outcome);
+
+        List<String> columns = new ArrayList<>();
+        for (String name : groupBy == null ? List.of("tenantId", "appId", "action", "outcome") : groupBy) {
+            if (name.isBlank()) continue;
+            String column = DIMENSIONS.get(name.trim());
+            if (column == null) {
+                throw new InvalidQueryException("groupBy may only contain tenantId, appId, action, outcome");
+            }
+            if (!columns.contains(column)) columns.add(column);
+        }
+        // keep the table's column order so equal requests produce the same SQL
+        columns.sort((a, b) -> RollupRepository.DIMENSIONS.indexOf(a) - RollupRepository.DIMENSIONS.indexOf(b));
+
+        List<RollupRepository.Row> rows = repo.query(g, start, end, filters, columns, maxRows + 1);
+        boolean truncated = rows.size() > maxRows;
+        if (truncated) {
+            rows = rows.subList(0, maxRows);
+        }
+        List<StatsResponse.Bucket> buckets = rows.stream()
+                .map(r -> new StatsResponse.Bucket(
+                        r.bucketStart().atOffset(ZoneOffset.UTC),
+                        dimension(r, "tenant_id"),
+                        dimension(r, "app_id"),
+                        dimension(r, "action"),
+                        dimension(r, "outcome"),
+                        r.count()))
+                .toList();
+        return new StatsResponse(g.column(), start.atOffset(ZoneOffset.UTC), end.atOffset(ZoneOffset.UTC), buckets, truncated);
+    }
+
+    private static Duration defaultWindow(Granularity g) {
+        return switch (g) {
+            case MINUTE -> Duration.ofHours(1);
+            case HOUR -> Duration.ofDays(1);
+            case DAY -> Duration.ofDays(30);
+        };
+    }
+
+    private static LocalDateTime bucketStart(Granularity g, LocalDateTime t) {
+        long minute = Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+        return LocalDateTime.ofEpochSecond(g.truncate(minute) * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime utc(OffsetDateTime t) {
+        return t.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /** Value of a grouped dimension; empty strings stand for events without that dimension. */
+    private static String dimension(RollupRepository.Row row, String column) {
+        String v = row.dimensions().get(column);
+        return v == null || v.isEmpty() ? null : v;
+    }
+}
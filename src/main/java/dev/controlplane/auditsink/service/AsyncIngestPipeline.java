@@ -0,0 +1,310 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.controlplane.auditsink.rollup.RollupAggregator;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.InsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for {@code audit.ingest.mode=async}. Request threads enqueue fully prepared
+ * entities onto a bounded queue; writer threads drain it in group-commit batches (up to
+ * {@code batchSize} events or {@code maxLingerMs} after the first event, whichever comes first).
+ * Events the database rejects as invalid are isolated from the rest of their batch and moved to
+ * {@code quarantine.ndjson} in {@code spillDir}.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.ingest.mode", havingValue = "async")
+public class AsyncIngestPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncIngestPipeline.class);
+
+    public enum Backpressure { BLOCK, REJECT, SPILL }
+
+    private final AuditEventRepository repo;
+    private final BlockingQueue<AuditEventEntity> queue;
+    private final Backpressure backpressure;
+    private final long blockTimeoutMs;
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final int maxRetries;
+    private final IngestSpillFile spill;
+    private final QuarantineFile quarantine;
+    private final ObjectMapper mapper;
+    private final RollupAggregator rollups;
+    private final EventReadCache readCache;
+    private final LiveTailHub tail;
+    private final IdempotencyKeyCache idempotencyCache;
+    private final IdempotencyKeyFilter idempotencyFilter;
+    private final ExecutorService writers;
+    private final ReentrantLock spillDrainLock = new ReentrantLock();
+    private volatile boolean running = true;
+
+    private final Counter ingestedCounter;
+    private final Counter dedupCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter spilledCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchWriteTimer;
+
+    public AsyncIngestPipeline(
+            AuditEventRepository repo,
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            Optional<RollupAggregator> rollups,
+            EventReadCache readCache,
+            LiveTailHub tail,
+            IdempotencyKeyCache idempotencyCache,
+            IdempotencyKeyFilter idempotencyFilter,
+            @Value("${audit.ingest.async.queueCapacity:10000}") int queueCapacity,
+            @Value("${audit.ingest.async.writerThreads:2}") int writerThreads,
+            @Value("${audit.ingest.async.batchSize:500}") int batchSize,
+            @Value("${audit.ingest.async.maxLingerMs:20}") long maxLingerMs,
+            @Value("${audit.ingest.async.maxRetries:3}") int maxRetries,
+            @Value("${audit.ingest.async.backpressure:BLOCK}") Backpressure backpressure,
+            @Value("${audit.ingest.async.blockTimeoutMs:5000}") long blockTimeoutMs,
+            @Value("${audit.ingest.async.spillDir:./data/spill}") String spillDir
+    ) {
+        this.repo = repo;
+        this.rollups = rollups.orElse(null);
+        this.readCache = readCache;
+        this.tail = tail;
+        this.idempotencyCache = idempotencyCache;
+        this.idempotencyFilter = idempotencyFilter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.backpressure = backpressure;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.batchSize = batchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.maxRetries = maxRetries;
+        this.mapper = objectMapper;
+        this.quarantine = new QuarantineFile(Path.of(spillDir).resolve("quarantine.ndjson"), objectMapper,
+                registry.counter("audit.ingest.async.quarantined"));
+        this.spill = backpressure == Backpressure.SPILL
+                ? new IngestSpillFile(Path.of(spillDir), objectMapper, quarantine) : null;
+
+        this.ingestedCounter = registry.counter("audit.events.ingested");
+        this.dedupCounter = registry.counter("audit.events.deduped");
+        this.failedCounter = registry.counter("audit.ingest.async.failed");
+        this.rejectedCounter = registry.counter("audit.ingest.queue.rejected");
+        this.spilledCounter = registry.counter("audit.ingest.queue.spilled");
+        this.batchSizeSummary = DistributionSummary.builder("audit.ingest.batch.size")
+                .description("Events written per group-commit batch")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchWriteTimer = Timer.builder("audit.ingest.batch.write")
+                .description("Time to write one group-commit batch")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("audit.ingest.queue.depth", queue, BlockingQueue::size).register(registry);
+        Gauge.builder("audit.ingest.queue.remaining", queue, BlockingQueue::remainingCapacity).register(registry);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "audit-writer-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < writerThreads; i++) {
+            writers.submit(this::writerLoop);
+        }
+        log.info("Async ingest pipeline started: queueCapacity={}, writerThreads={}, batchSize={}, maxLingerMs={}, backpressure={}",
+                queueCapacity, writerThreads, batchSize, maxLingerMs, backpressure);
+    }
+
+    public void submit(AuditEventEntity e) {
+        if (!running) {
+            throw new IngestRejectedException("Ingest pipeline is shutting down");
+        }
+        if (queue.offer(e)) return;
+
+        switch (backpressure) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(e, blockTimeoutMs, TimeUnit.MILLISECONDS)) return;
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                rejectedCounter.increment();
+                throw new IngestRejectedException("Ingest queue full");
+            }
+            case SPILL -> {
+                try {
+                    spill.append(e);
+                    spilledCounter.increment();
+                } catch (IOException io) {
+                    rejectedCounter.increment();
+                    log.error("Failed to spill audit event: eventId={}, error={}", e.id, io.getMessage(), io);
+                    throw new IngestRejectedException("Ingest queue full and spill failed");
+                }
+            }
+            default -> {
+                rejectedCounter.increment();
+                throw new IngestRejectedException("Ingest queue full");
+            }
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void writerLoop() {
+        List<AuditEventEntity> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEventEntity first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    drainSpill();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    AuditEventEntity next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                writeWithRetry(batch);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                log.error("Unexpected error in audit writer: {}", ex.getMessage(), ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<AuditEventEntity> batch) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                writeIsolated(batch);
+                return;
+            } catch (Exception ex) {
+                if (attempt >= maxRetries) {
+                    handleFailedBatch(batch, ex);
+                    return;
+                }
+                log.warn("Audit batch write failed, retrying: size={}, attempt={}, error={}",
+                        batch.size(), attempt + 1, ex.getMessage());
+                Thread.sleep(100L << attempt);
+            }
+        }
+    }
+
+    /**
+     * Writes the batch, and when the database rejects it as invalid writes it again one event at a
+     * time so that only the offending events are quarantined. Any other failure, such as the
+     * database being down, still fails the whole batch.
+     */
+    private void writeIsolated(List<AuditEventEntity> batch) throws IOException {
+        try {
+            write(batch);
+            return;
+        } catch (DataIntegrityViolationException rejected) {
+            if (batch.size() == 1) {
+                quarantine.add(mapper.writeValueAsBytes(batch.get(0)),
+                        "rejected: " + rejected.getMostSpecificCause().getMessage());
+                return;
+            }
+            log.warn("Audit batch rejected, writing its events one by one: size={}, error={}",
+                    batch.size(), rejected.getMostSpecificCause().getMessage());
+        }
+        for (AuditEventEntity e : batch) {
+            try {
+                write(List.of(e));
+            } catch (DataIntegrityViolationException rejected) {
+                quarantine.add(mapper.writeValueAsBytes(e), "rejected: " + rejected.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void write(List<AuditEventEntity> batch) {
+        List<InsertResult> results = batchWriteTimer.record(() -> repo.insertBatch(batch));
+        if (rollups != null) rollups.recordInserted(batch, results);
+        readCache.recordInserted(batch, results);
+        tail.publishInserted(batch, results);
+        int inserted = 0;
+        int deduped = 0;
+        for (int i = 0; i < results.size(); i++) {
+            InsertResult r = results.get(i);
+            if (r.inserted()) inserted++;
+            else if (r.duplicate()) deduped++;
+            idempotencyCache.put(batch.get(i).idempotencyKey, r.id());
+            idempotencyFilter.record(batch.get(i).idempotencyKey);
+        }
+        batchSizeSummary.record(batch.size());
+        ingestedCounter.increment(inserted);
+        dedupCounter.increment(deduped);
+        log.debug("Wrote audit batch: size={}, deduped={}", batch.size(), deduped);
+    }
+
+    private void handleFailedBatch(List<AuditEventEntity> batch, Exception ex) {
+        if (spill != null) {
+            try {
+                for (AuditEventEntity e : batch) spill.append(e);
+                spilledCounter.increment(batch.size());
+                log.warn("Audit batch write failed, spilled to disk: size={}, error={}", batch.size(), ex.getMessage());
+                return;
+            } catch (IOException io) {
+                log.error("Failed to spill audit batch: {}", io.getMessage(), io);
+            }
+        }
+        failedCounter.increment(batch.size());
+        log.error("Dropping audit batch after {} retries: size={}, firstEventId={}, error={}",
+                maxRetries, batch.size(), batch.get(0).id, ex.getMessage(), ex);
+    }
+
+    private void drainSpill() {
+        if (spill == null || !spill.hasPending() || !queue.isEmpty()) return;
+        if (!spillDrainLock.tryLock()) return;
+        try {
+            spill.drain(batchSize, this::writeIsolated);
+        } catch (Exception ex) {
+            log.warn("Replaying spilled audit events failed, will retry: {}", ex.getMessage());
+        } finally {
+            spillDrainLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Async ingest pipeline did not drain in time: remaining={}", queue.size());
+            writers.shutdownNow();
+        }
+    }
+}
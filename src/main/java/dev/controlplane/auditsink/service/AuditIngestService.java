@@ -1,21 +1,25 @@
 package dev.controlplane.auditsink.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.controlplane.auditsink.model.AuditEventRequest;
 import dev.controlplane.auditsink.model.IngestResponse;
+import dev.controlplane.auditsink.rollup.RollupAggregator;
+import dev.controlplane.auditsink.service.IngestMetrics.Stage;
+import dev.controlplane.auditsink.spool.DurableIngestSpool;
 import dev.controlplane.auditsink.store.AuditEventEntity;
 import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.InsertResult;
 import dev.controlplane.auditsink.util.HashingUtil;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -31,11 +35,32 @@ public class AuditIngestService {
     private final Counter ingestedCounter;
     private final Counter dedupCounter;
     private final Counter rejectedCounter;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final AsyncIngestPipeline pipeline;
+    private final DurableIngestSpool spool;
+    private final IdempotencyKeyCache idempotencyCache;
+    private final IdempotencyKeyFilter idempotencyFilter;
+    private final RollupAggregator rollups;
+    private final EventReadCache readCache;
+    private final LiveTailHub tail;
+    private final IngestMetrics metrics;
+    private final String mode;
 
-    public AuditIngestService(AuditEventRepository repo, RedactionService redactionService, MeterRegistry registry) {
+    public AuditIngestService(AuditEventRepository repo, RedactionService redactionService, MeterRegistry registry,
+                              IngestMetrics metrics, IdempotencyKeyCache idempotencyCache,
+                              IdempotencyKeyFilter idempotencyFilter, Optional<AsyncIngestPipeline> pipeline,
+                              Optional<DurableIngestSpool> spool, Optional<RollupAggregator> rollups,
+                              EventReadCache readCache, LiveTailHub tail) {
         this.repo = repo;
         this.redactionService = redactionService;
+        this.idempotencyCache = idempotencyCache;
+        this.idempotencyFilter = idempotencyFilter;
+        this.pipeline = pipeline.orElse(null);
+        this.spool = spool.orElse(null);
+        this.rollups = rollups.orElse(null);
+        this.readCache = readCache;
+        this.tail = tail;
+        this.metrics = metrics;
+        this.mode = this.pipeline != null ? "async" : this.spool != null ? "durable" : "sync";
         this.receivedCounter = registry.counter("audit.events.received");
         this.ingestedCounter = registry.counter("audit.events.ingested");
         this.dedupCounter = registry.counter("audit.events.deduped");
@@ -43,12 +68,182 @@ public class AuditIngestService {
     }
 
     public IngestResponse ingest(AuditEventRequest req, HttpServletRequest http) {
+        long start = System.nanoTime();
         receivedCounter.increment();
         
         log.info("Processing audit event: action={}, outcome={}, subject={}:{}, actor={}:{}, producerId={}", 
                 req.action(), req.outcome(), req.subject().type(), req.subject().id(), 
                 req.actor().type(), req.actor().id(), req.producerId());
 
+        AuditEventEntity e = toEntity(req, http, false);
+
+        long t = System.nanoTime();
+        UUID cached = idempotencyCache.get(e.idempotencyKey);
+        metrics.recordStage(Stage.DEDUP_LOOKUP, false, cached != null ? "cache_hit" : "cache_miss", t);
+        if (cached != null) {
+            dedupCounter.increment();
+            log.info("Duplicate audit event detected from cache: existingId={}, action={}, deduped=true, idempotencyKey={}",
+                    cached, req.action(), e.idempotencyKey);
+            metrics.recordRequest(false, mode, "deduped", req.producerId(), start);
+            return new IngestResponse(cached.toString(), true);
+        }
+
+        if (pipeline != null || spool != null) {
+            t = System.nanoTime();
+            try {
+                if (pipeline != null) {
+                    pipeline.submit(e);
+                } else {
+                    spool.append(e);
+                }
+            } catch (RuntimeException ex) {
+                metrics.recordStage(Stage.ENQUEUE, false, "rejected", t);
+                metrics.recordRequest(false, mode, "rejected", req.producerId(), start);
+                throw ex;
+            }
+            metrics.recordStage(Stage.ENQUEUE, false, "ok", t);
+            // the writer caches the key once the database has settled which event holds it
+            log.info("{} audit event for {} write: eventId={}, action={}",
+                    pipeline != null ? "Queued" : "Spooled", mode, e.id, req.action());
+            metrics.recordRequest(false, mode, "queued", req.producerId(), start);
+            return new IngestResponse(e.id.toString(), false);
+        }
+
+        UUID id;
+        try {
+            if (idempotencyFilter.isDefinitelyNew(e.idempotencyKey)) {
+                t = System.nanoTime();
+                id = repo.insertNew(e);
+                metrics.recordStage(Stage.INSERT, false, id.equals(e.id) ? "inserted" : "duplicate", t);
+            } else {
+                t = System.nanoTime();
+                Optional<UUID> existing = repo.findByIdempotencyKey(e.idempotencyKey);
+                metrics.recordStage(Stage.DEDUP_LOOKUP, false, existing.isPresent() ? "db_hit" : "db_miss", t);
+                if (existing.isPresent()) {
+                    id = existing.get();
+                } else {
+                    t = System.nanoTime();
+                    id = repo.insertIfAbsent(e);
+                    metrics.recordStage(Stage.INSERT, false, id.equals(e.id) ? "inserted" : "duplicate", t);
+                }
+            }
+        } catch (Exception ex) {
+            rejectedCounter.increment();
+            metrics.recordRequest(false, mode, "rejected", req.producerId(), start);
+            log.error("Failed to ingest audit event: action={}, subject={}:{}, error={}", 
+                    req.action(), req.subject().type(), req.subject().id(), ex.getMessage(), ex);
+            throw ex;
+        }
+        idempotencyCache.put(e.idempotencyKey, id);
+        idempotencyFilter.record(e.idempotencyKey);
+
+        if (id.equals(e.id)) {
+            ingestedCounter.increment();
+            if (rollups != null) rollups.record(e);
+            readCache.record(e);
+            tail.publish(e);
+            log.info("Successfully ingested audit event: eventId={}, action={}, deduped=false", id, req.action());
+            metrics.recordRequest(false, mode, "ingested", req.producerId(), start);
+            return new IngestResponse(id.toString(), false);
+        }
+        dedupCounter.increment();
+        log.info("Duplicate audit event detected: existingId={}, action={}, deduped=true, idempotencyKey={}", 
+                id, req.action(), e.idempotencyKey);
+        metrics.recordRequest(false, mode, "deduped", req.producerId(), start);
+        return new IngestResponse(id.toString(), true);
+    }
+
+    public List<IngestResponse> ingestBatch(List<AuditEventRequest> reqs, HttpServletRequest http) {
+        long start = System.nanoTime();
+        String producerId = batchProducer(reqs);
+        receivedCounter.increment(reqs.size());
+        log.info("Processing audit event batch: size={}", reqs.size());
+
+        IngestResponse[] responses = new IngestResponse[reqs.size()];
+        List<AuditEventEntity> entities = new ArrayList<>(reqs.size());
+        List<Integer> slots = new ArrayList<>(reqs.size());
+        int cachedDuplicates = 0;
+        for (int i = 0; i < reqs.size(); i++) {
+            AuditEventEntity e = toEntity(reqs.get(i), http, true);
+            UUID cached = idempotencyCache.get(e.idempotencyKey);
+            if (cached != null) {
+                responses[i] = new IngestResponse(cached.toString(), true);
+                cachedDuplicates++;
+            } else {
+                entities.add(e);
+                slots.add(i);
+            }
+        }
+        dedupCounter.increment(cachedDuplicates);
+
+        if (pipeline != null || spool != null) {
+            long t = System.nanoTime();
+            try {
+                if (pipeline != null) {
+                    for (AuditEventEntity e : entities) pipeline.submit(e);
+                } else {
+                    spool.appendAll(entities);
+                }
+            } catch (RuntimeException ex) {
+                metrics.recordStage(Stage.ENQUEUE, true, "rejected", t);
+                metrics.recordRequest(true, mode, "rejected", producerId, start);
+                throw ex;
+            }
+            metrics.recordStage(Stage.ENQUEUE, true, "ok", t);
+            for (int j = 0; j < entities.size(); j++) {
+                responses[slots.get(j)] = new IngestResponse(entities.get(j).id.toString(), false);
+            }
+            log.info("Queued audit event batch for {} write: size={}, cachedDuplicates={}",
+                    mode, entities.size(), cachedDuplicates);
+            metrics.recordRequest(true, mode, "queued", producerId, start);
+            return List.of(responses);
+        }
+
+        List<InsertResult> results;
+        long t = System.nanoTime();
+        try {
+            results = repo.insertBatch(entities);
+        } catch (Exception ex) {
+            rejectedCounter.increment(entities.size());
+            metrics.recordStage(Stage.INSERT, true, "error", t);
+            metrics.recordRequest(true, mode, "rejected", producerId, start);
+            log.error("Failed to ingest audit event batch: size={}, error={}", entities.size(), ex.getMessage(), ex);
+            throw ex;
+        }
+
+        metrics.recordStage(Stage.INSERT, true, "ok", t);
+        if (rollups != null) rollups.recordInserted(entities, results);
+        readCache.recordInserted(entities, results);
+        tail.publishInserted(entities, results);
+        int inserted = 0;
+        int deduped = 0;
+        for (int j = 0; j < results.size(); j++) {
+            AuditEventEntity e = entities.get(j);
+            InsertResult r = results.get(j);
+            if (r.inserted()) inserted++;
+            else if (r.duplicate()) deduped++;
+            idempotencyCache.put(e.idempotencyKey, r.id());
+            idempotencyFilter.record(e.idempotencyKey);
+            responses[slots.get(j)] = new IngestResponse(r.id().toString(), r.duplicate());
+        }
+        ingestedCounter.increment(inserted);
+        dedupCounter.increment(deduped);
+        log.info("Successfully ingested audit event batch: size={}, ingested={}, deduped={}",
+                reqs.size(), inserted, deduped + cachedDuplicates);
+        metrics.recordRequest(true, mode, "ok", producerId, start);
+        return List.of(responses);
+    }
+
+    /** The batch's producer id when all events share one, for tagging the batch's timer. */
+    private static String batchProducer(List<AuditEventRequest> reqs) {
+        String producer = reqs.get(0).producerId();
+        for (AuditEventRequest req : reqs) {
+            if (!Objects.equals(producer, req.producerId())) return "mixed";
+        }
+        return producer;
+    }
+
+    private AuditEventEntity toEntity(AuditEventRequest req, HttpServletRequest http, boolean batch) {
         AuditEventEntity e = new AuditEventEntity();
         e.id = UUID.randomUUID();
         e.schemaVersion = Optional.ofNullable(req.schemaVersion()).orElse(1);
@@ -62,8 +257,9 @@ public class AuditIngestService {
         e.roles = req.actor().roles() != null ? req.actor().roles().stream().collect(Collectors.joining(",")) : null;
         e.tenantId = req.actor().tenantId();
         e.channel = req.channel();
-        e.ip = clientIp(http);
-        e.userAgent = http.getHeader("User-Agent");
+        // header-derived, so not covered by request validation; clip to the column widths
+        e.ip = clip(clientIp(http), 128);
+        e.userAgent = clip(http.getHeader("User-Agent"), 1024);
         e.correlationId = req.correlationId();
         e.traceId = req.traceId();
         if (req.context() != null) {
@@ -78,15 +274,28 @@ public class AuditIngestService {
             e.rulePath = req.policy().rulePath();
         }
         if (req.payload() != null) {
-            e.argsRedacted = redactionService.redactAndCap(req.payload().argsRedacted());
-            e.resultRedacted = redactionService.redactAndCap(req.payload().resultRedacted());
-            e.payloadHash = req.payload().payloadHash();
+            AuditEventRequest.Payload payload = req.payload();
+            if (payload.argsJson() != null || payload.resultJson() != null) {
+                // raw payload mode: already redacted while the request was bound
+                e.argsRedacted = payload.argsJson();
+                e.resultRedacted = payload.resultJson();
+            } else {
+                long t = System.nanoTime();
+                e.argsRedacted = redactionService.redactAndCap(payload.argsRedacted());
+                e.resultRedacted = redactionService.redactAndCap(payload.resultRedacted());
+                metrics.recordStage(Stage.REDACT, batch, "ok", t);
+            }
+            e.payloadHash = payload.payloadHash();
+            metrics.recordPayloadSize("args", req.producerId(), e.argsRedacted);
+            metrics.recordPayloadSize("result", req.producerId(), e.resultRedacted);
         }
         if (req.error() != null) {
             e.errorType = req.error().errorType();
             e.errorMessageHash = req.error().errorMessageHash();
         }
+        long t = System.nanoTime();
         e.idempotencyKey = computeIdempotencyKey(req, http);
+        metrics.recordStage(Stage.KEY, batch, "ok", t);
         
         if (req.idempotencyKey() != null) {
             log.warn("Client provided idempotencyKey '{}' ignored - using server-generated: '{}'", 
@@ -94,55 +303,34 @@ public class AuditIngestService {
         }
         log.debug("Using server-generated idempotency key: {}", e.idempotencyKey);
         log.debug("Entity ready for insert: id={}, occurredAtUtc={}, action={}", e.id, e.occurredAtUtc, e.action);
-
-        try {
-            UUID id = repo.insert(e);
-            ingestedCounter.increment();
-            log.info("Successfully ingested audit event: eventId={}, action={}, deduped=false", id, req.action());
-            return new IngestResponse(id.toString(), false);
-        } catch (DataIntegrityViolationException dup) {
-            dedupCounter.increment();
-            UUID existing = repo.findByIdempotencyKey(e.idempotencyKey).orElse(UUID.randomUUID());
-            log.info("Duplicate audit event detected: existingId={}, action={}, deduped=true, idempotencyKey={}", 
-                    existing, req.action(), e.idempotencyKey);
-            return new IngestResponse(existing.toString(), true);
-        } catch (Exception ex) {
-            rejectedCounter.increment();
-            log.error("Failed to ingest audit event: action={}, subject={}:{}, error={}", 
-                    req.action(), req.subject().type(), req.subject().id(), ex.getMessage(), ex);
-            throw ex;
-        }
+        return e;
     }
 
-    private String computeIdempotencyKey(AuditEventRequest req, HttpServletRequest http) {
-        try {
-            String payloadJson = mapper.writeValueAsString(req);
-            String payloadHash = HashingUtil.sha256Base64(payloadJson);
-            
-            String s = String.join("|",
-                    "p:" + req.producerId(),
-                    "ip:" + clientIp(http),
-                    "ua:" + nullSafe(http.getHeader("User-Agent")),
-                    "ts:" + req.occurredAtUtc().toString(),
-                    "payload:" + payloadHash);
-            return HashingUtil.sha256Base64(s);
-        } catch (JsonProcessingException e) {
-            String fallback = String.join("|",
-                    "p:" + req.producerId(),
-                    "ip:" + clientIp(http),
-                    "ts:" + req.occurredAtUtc().toString(),
-                    "a:" + req.action(),
-                    "st:" + req.subject().type(),
-                    "si:" + req.subject().id());
-            return HashingUtil.sha256Base64(fallback);
-        }
+    /**
+     * SHA-256 over {@code p:<producerId>|ip:<clientIp>|ts:<occurredAtUtc>|a:<action>|st:<subjectType>|si:<subjectId>},
+     * streamed field by field into a reused digest so no joined String is built.
+     */
+    String computeIdempotencyKey(AuditEventRequest req, HttpServletRequest http) {
+        return HashingUtil.sha256()
+                .append("p:").append(req.producerId())
+                .append("|ip:").append(clientIp(http))
+                .append("|ts:").append(req.occurredAtUtc().toString())
+                .append("|a:").append(req.action())
+                .append("|st:").append(req.subject().type())
+                .append("|si:").append(req.subject().id())
+                .digestBase64();
     }
 
-    private String nullSafe(String s) { return s == null ? "" : s; }
-
     private String clientIp(HttpServletRequest http) {
         String xff = http.getHeader("X-Forwarded-For");
-        if (xff != null && !xff.isBlank()) return xff.split(",")[0].trim();
+        if (xff != null && !xff.isBlank()) {
+            int comma = xff.indexOf(',');
+            return (comma < 0 ? xff : xff.substring(0, comma)).trim();
+        }
         return http.getRemoteAddr();
     }
+
+    private static String clip(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
 }
@@ -1,42 +1,71 @@
 package dev.controlplane.auditsink.service;
 
+import dev.controlplane.auditsink.archive.ArchiveQueryService;
 import dev.controlplane.auditsink.model.AuditEventResponse;
+import dev.controlplane.auditsink.model.CursorPagedResponse;
 import dev.controlplane.auditsink.model.PagedResponse;
+import dev.controlplane.auditsink.service.EventCountService.IncludeTotal;
 import dev.controlplane.auditsink.store.AuditEventEntity;
 import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.PageCursor;
+import dev.controlplane.auditsink.store.ReadRouting;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class AuditQueryService {
     
     private final AuditEventRepository repository;
+    private final EventCountService countService;
+    private final Optional<ArchiveQueryService> archive;
+    private final QueryMetrics metrics;
+    private final Optional<SearchPatternStats> patterns;
+    private final EventReadCache cache;
+    private final LiveTailHub tail;
     
-    public AuditQueryService(AuditEventRepository repository) {
+    public AuditQueryService(AuditEventRepository repository, EventCountService countService,
+                             Optional<ArchiveQueryService> archive, QueryMetrics metrics,
+                             Optional<SearchPatternStats> patterns, EventReadCache cache, LiveTailHub tail) {
         this.repository = repository;
+        this.countService = countService;
+        this.archive = archive;
+        this.metrics = metrics;
+        this.patterns = patterns;
+        this.cache = cache;
+        this.tail = tail;
     }
     
-    public PagedResponse<AuditEventResponse> getEvents(int page, int size, String sortBy, String sortOrder) {
-        String validSortBy = validateSortField(sortBy);
-        List<AuditEventEntity> entities = repository.findAll(page, size, validSortBy, sortOrder);
-        long totalElements = repository.count();
-        
-        List<AuditEventResponse> responses = entities.stream()
-            .map(this::mapToResponse)
-            .toList();
-            
-        return PagedResponse.of(responses, page, size, totalElements);
+    public PagedResponse<AuditEventResponse> getEvents(int page, int size, String sortBy, String sortOrder, String includeTotal) {
+        return ReadRouting.onReplica(() -> offsetPage(Map.of(), page, size, sortBy, sortOrder, includeTotal));
     }
     
     public Optional<AuditEventResponse> getEventById(UUID id) {
-        return repository.findById(id)
-            .map(this::mapToResponse);
+        return Optional.ofNullable(cache.event(id, this::loadEvent)).map(this::mapToResponse);
+    }
+
+    private AuditEventEntity loadEvent(UUID id) {
+        long start = System.nanoTime();
+        Optional<AuditEventEntity> hot = ReadRouting.onReplica(() -> repository.findById(id));
+        metrics.recordPhase("get", "fetch", start);
+        if (hot.isEmpty() && archive.isPresent()) {
+            start = System.nanoTime();
+            hot = archive.get().findById(id);
+            metrics.recordPhase("get", "archive", start);
+        }
+        return hot.orElse(null);
     }
     
     public PagedResponse<AuditEventResponse> searchEvents(
@@ -53,8 +82,272 @@ public class AuditQueryService {
             int page,
             int size,
             String sortBy,
-            String sortOrder) {
+            String sortOrder,
+            String includeTotal) {
+        
+        Map<String, Object> filters = buildFilters(tenantId, actorId, subjectId, action, outcome,
+            correlationId, traceId, appId, fromDate, toDate);
+        return ReadRouting.onReplica(() -> offsetPage(filters, page, size, sortBy, sortOrder, includeTotal));
+    }
+
+    private PagedResponse<AuditEventResponse> offsetPage(
+            Map<String, Object> filters, int page, int size, String sortBy, String sortOrder, String includeTotal) {
+        IncludeTotal mode = IncludeTotal.parse(includeTotal);
+        String op = filters.isEmpty() ? "list" : "search";
+        String validSortBy = validateSortField(sortBy);
+        boolean descending = isDescending(sortOrder);
+        String order = descending ? "DESC" : "ASC";
+        long offset = (long) page * size;
+
+        // without an exact total, one extra row tells us whether another page exists
+        int limit = mode == IncludeTotal.EXACT ? size : size + 1;
+        ArchiveQueryService cold = archive.filter(a -> a.mayMatch(filters)).orElse(null);
+        List<AuditEventEntity> entities;
+        long start = System.nanoTime();
+        List<AuditEventEntity> timeline = cold == null ? cachedTimeline(filters, validSortBy, descending) : null;
+        if (timeline != null) {
+            entities = timeline.subList((int) Math.min(offset, timeline.size()), (int) Math.min(offset + limit, timeline.size()));
+            metrics.recordPhase(op, "cache", start);
+        } else if (cold == null) {
+            entities = filters.isEmpty()
+                ? repository.findAll(offset, limit, validSortBy, order)
+                : repository.search(filters, offset, limit, validSortBy, order);
+            metrics.recordPhase(op, "fetch", start);
+            recordPattern("offset", filters, validSortBy, false, start);
+        } else {
+            // the merged order is only known from the start, so both tiers supply offset + limit rows
+            int window = (int) Math.min(Integer.MAX_VALUE - 1, offset + limit);
+            List<AuditEventEntity> hot = filters.isEmpty()
+                ? repository.findAll(0, window, validSortBy, order)
+                : repository.search(filters, 0, window, validSortBy, order);
+            metrics.recordPhase(op, "fetch", start);
+            recordPattern("offset", filters, validSortBy, false, start);
+            start = System.nanoTime();
+            AuditEventEntity bound = hot.size() == window ? hot.get(hot.size() - 1) : null;
+            List<AuditEventEntity> merged = merge(hot, cold.top(filters, validSortBy, descending, null, bound, window),
+                validSortBy, descending);
+            entities = merged.subList((int) Math.min(offset, merged.size()), (int) Math.min(offset + limit, merged.size()));
+            metrics.recordPhase(op, "archive", start);
+        }
+        boolean hasNext = entities.size() > size;
+        if (hasNext) {
+            entities = entities.subList(0, size);
+        }
         
+        start = System.nanoTime();
+        List<AuditEventResponse> responses = entities.stream()
+            .map(this::mapToResponse)
+            .toList();
+        metrics.recordPhase(op, "map", start);
+
+        if (mode == IncludeTotal.NONE) {
+            return PagedResponse.withoutTotal(responses, page, size, hasNext);
+        }
+        if (timeline != null) {
+            return PagedResponse.of(responses, page, size, timeline.size());
+        }
+        start = System.nanoTime();
+        EventCountService.Total total = countService.count(filters, mode);
+        long totalValue = total.value() + (cold == null ? 0 : cold.count(filters));
+        metrics.recordPhase(op, "count", start);
+        recordPattern("offset", filters, validSortBy, true, start);
+        if (total.approximate()) {
+            return PagedResponse.approximate(responses, page, size, totalValue, hasNext);
+        }
+        return PagedResponse.of(responses, page, size, totalValue);
+    }
+
+    /** Keyset variant of {@link #getEvents}; an empty {@code cursor} starts at the first page. */
+    public CursorPagedResponse<AuditEventResponse> getEventsAfter(String cursor, int size, String sortBy, String sortOrder) {
+        return ReadRouting.onReplica(() -> cursorPage(Map.of(), cursor, size, sortBy, sortOrder));
+    }
+
+    /** Keyset variant of {@link #searchEvents}; an empty {@code cursor} starts at the first page. */
+    public CursorPagedResponse<AuditEventResponse> searchEventsAfter(
+            String tenantId,
+            String actorId,
+            String subjectId,
+            String action,
+            String outcome,
+            String correlationId,
+            String traceId,
+            String appId,
+            OffsetDateTime fromDate,
+            OffsetDateTime toDate,
+            String cursor,
+            int size,
+            String sortBy,
+            String sortOrder) {
+
+        Map<String, Object> filters = buildFilters(tenantId, actorId, subjectId, action, outcome,
+            correlationId, traceId, appId, fromDate, toDate);
+        return ReadRouting.onReplica(() -> cursorPage(filters, cursor, size, sortBy, sortOrder));
+    }
+
+    /**
+     * Streams every event matching the filters to {@code sink} in occurred_at_utc order, without
+     * paging or holding the result in memory.
+     */
+    public void exportEvents(
+            String tenantId,
+            String actorId,
+            String subjectId,
+            String action,
+            String outcome,
+            String correlationId,
+            String traceId,
+            String appId,
+            OffsetDateTime fromDate,
+            OffsetDateTime toDate,
+            boolean descending,
+            Consumer<AuditEventResponse> sink) {
+
+        Map<String, Object> filters = buildFilters(tenantId, actorId, subjectId, action, outcome,
+            correlationId, traceId, appId, fromDate, toDate);
+        ReadRouting.onReplica(() ->
+            repository.streamSearch(filters, descending, e -> sink.accept(mapToResponse(e))));
+    }
+
+    /**
+     * Opens a live stream of newly stored events matching the filters. A {@code lastEventId} (the id
+     * of the last event a client received) first replays the stored events after it from the primary,
+     * which a lagging replica might not have yet.
+     */
+    public SseEmitter tailEvents(
+            String tenantId,
+            String actorId,
+            String subjectId,
+            String action,
+            String outcome,
+            String correlationId,
+            String traceId,
+            String appId,
+            OffsetDateTime fromDate,
+            OffsetDateTime toDate,
+            String lastEventId) {
+
+        Map<String, Object> filters = buildFilters(tenantId, actorId, subjectId, action, outcome,
+            correlationId, traceId, appId, fromDate, toDate);
+        PageCursor after;
+        try {
+            after = lastEventId == null || lastEventId.isEmpty() ? null : PageCursor.decode(lastEventId);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed Last-Event-ID");
+        }
+        return tail.subscribe(filters,
+            after == null ? null : limit -> repository.searchAfter(filters, after, limit, false),
+            this::mapToResponse);
+    }
+
+    private CursorPagedResponse<AuditEventResponse> cursorPage(
+            Map<String, Object> filters, String cursor, int size, String sortBy, String sortOrder) {
+        if (sortBy != null && !"occurred_at_utc".equals(sortBy)) {
+            throw new InvalidCursorException("Cursor pagination only supports sortBy=occurred_at_utc");
+        }
+        PageCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+        }
+
+        // one extra row tells us whether another page exists without counting
+        boolean descending = isDescending(sortOrder);
+        ArchiveQueryService cold = archive.filter(a -> a.mayMatch(filters)).orElse(null);
+        long start = System.nanoTime();
+        List<AuditEventEntity> timeline = cold == null ? cachedTimeline(filters, "occurred_at_utc", descending) : null;
+        List<AuditEventEntity> entities;
+        if (timeline != null) {
+            int from = 0;
+            if (after != null) {
+                Comparator<AuditEventEntity> order = ArchiveQueryService.ordering("occurred_at_utc", descending);
+                AuditEventEntity afterRow = new AuditEventEntity();
+                afterRow.occurredAtUtc = after.occurredAtUtc();
+                afterRow.id = after.id();
+                while (from < timeline.size() && order.compare(timeline.get(from), afterRow) <= 0) from++;
+            }
+            entities = timeline.subList(from, Math.min(from + size + 1, timeline.size()));
+            metrics.recordPhase("cursor", "cache", start);
+        } else {
+            entities = repository.searchAfter(filters, after, size + 1, descending);
+            metrics.recordPhase("cursor", "fetch", start);
+            recordPattern("cursor", filters, "occurred_at_utc", false, start);
+        }
+        if (cold != null) {
+            start = System.nanoTime();
+            AuditEventEntity bound = entities.size() == size + 1 ? entities.get(size) : null;
+            entities = merge(entities, cold.top(filters, "occurred_at_utc", descending, after, bound, size + 1),
+                "occurred_at_utc", descending);
+            if (entities.size() > size + 1) {
+                entities = entities.subList(0, size + 1);
+            }
+            metrics.recordPhase("cursor", "archive", start);
+        }
+        boolean hasNext = entities.size() > size;
+        if (hasNext) {
+            entities = entities.subList(0, size);
+        }
+        String nextCursor = hasNext ? PageCursor.of(entities.get(entities.size() - 1)).encode() : null;
+
+        start = System.nanoTime();
+        List<AuditEventResponse> responses = entities.stream()
+            .map(this::mapToResponse)
+            .toList();
+        metrics.recordPhase("cursor", "map", start);
+
+        return new CursorPagedResponse<>(responses, size, nextCursor, hasNext);
+    }
+
+    /**
+     * Rows matching {@code filters} from the cached correlation or trace timeline, in the requested
+     * order; null when there is no complete timeline to answer from.
+     */
+    private List<AuditEventEntity> cachedTimeline(Map<String, Object> filters, String sortBy, boolean descending) {
+        EventReadCache.Timeline timeline = cache.timeline(filters);
+        if (timeline == null || !timeline.complete()) return null;
+        List<AuditEventEntity> rows = new ArrayList<>();
+        for (AuditEventEntity e : timeline.events()) {
+            if (EventReadCache.matches(e, filters)) rows.add(e);
+        }
+        rows.sort(ArchiveQueryService.ordering(sortBy, descending));
+        return rows;
+    }
+
+    private void recordPattern(String paging, Map<String, Object> filters, String sortBy, boolean count, long start) {
+        patterns.ifPresent(p -> p.record(paging, filters, sortBy, count, start));
+    }
+
+    /**
+     * Merges rows from the hot table and the archive into one ordered list. An event can sit in both
+     * tiers briefly while it is being archived; the hot copy wins.
+     */
+    private static List<AuditEventEntity> merge(List<AuditEventEntity> hot, List<AuditEventEntity> cold,
+                                                String sortBy, boolean descending) {
+        if (cold.isEmpty()) return hot;
+        List<AuditEventEntity> merged = new ArrayList<>(hot.size() + cold.size());
+        merged.addAll(hot);
+        Set<UUID> ids = new HashSet<>();
+        for (AuditEventEntity e : hot) ids.add(e.id);
+        for (AuditEventEntity e : cold) {
+            if (ids.add(e.id)) merged.add(e);
+        }
+        merged.sort(ArchiveQueryService.ordering(sortBy, descending));
+        return merged;
+    }
+
+    private Map<String, Object> buildFilters(
+            String tenantId,
+            String actorId,
+            String subjectId,
+            String action,
+            String outcome,
+            String correlationId,
+            String traceId,
+            String appId,
+            OffsetDateTime fromDate,
+            OffsetDateTime toDate) {
         Map<String, Object> filters = new HashMap<>();
         if (tenantId != null) filters.put("tenantId", tenantId);
         if (actorId != null) filters.put("actorId", actorId);
@@ -66,16 +359,7 @@ public class AuditQueryService {
         if (appId != null) filters.put("appId", appId);
         if (fromDate != null) filters.put("fromDate", fromDate);
         if (toDate != null) filters.put("toDate", toDate);
-        
-        String validSortBy = validateSortField(sortBy);
-        List<AuditEventEntity> entities = repository.search(filters, page, size, validSortBy, sortOrder);
-        long totalElements = repository.countWithFilters(filters);
-        
-        List<AuditEventResponse> responses = entities.stream()
-            .map(this::mapToResponse)
-            .toList();
-            
-        return PagedResponse.of(responses, page, size, totalElements);
+        return filters;
     }
     
     private String validateSortField(String sortBy) {
@@ -84,6 +368,19 @@ public class AuditQueryService {
             default -> "occurred_at_utc";
         };
     }
+
+    /**
+     * Parses {@code sortOrder} for offset pages, cursor pages and export alike; newest first by
+     * default. Public so export can reject a bad value before the response starts streaming.
+     */
+    public static boolean isDescending(String sortOrder) {
+        if (sortOrder == null) return true;
+        return switch (sortOrder.trim().toLowerCase(Locale.ROOT)) {
+            case "desc" -> true;
+            case "asc" -> false;
+            default -> throw new InvalidQueryException("sortOrder must be asc or desc");
+        };
+    }
     
     private AuditEventResponse mapToResponse(AuditEventEntity entity) {
         return new AuditEventResponse(
@@ -0,0 +1,83 @@
+package dev.controlplane.auditsink.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totals for paged queries. Exact counts and planner estimates are cached per filter combination
+ * for a short TTL, so a polling UI does not pay for a COUNT(*) on every page.
+ */
+@Component
+public class EventCountService {
+
+    /** Value of the {@code includeTotal} query parameter. */
+    public enum IncludeTotal {
+        EXACT, APPROX, NONE;
+
+        public static IncludeTotal parse(String value) {
+            if (value == null) return EXACT;
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "exact", "true" -> EXACT;
+                case "approx" -> APPROX;
+                case "false", "none" -> NONE;
+                default -> throw new InvalidQueryException("includeTotal must be one of exact, approx, false");
+            };
+        }
+    }
+
+    /** A total and whether it is a planner estimate rather than a count. */
+    public record Total(long value, boolean approximate) {}
+
+    private final AuditEventRepository repository;
+    private final Cache<String, Total> cache;
+    private final boolean cacheEnabled;
+
+    public EventCountService(
+            AuditEventRepository repository,
+            MeterRegistry registry,
+            @Value("${audit.query.countCache.enabled:true}") boolean cacheEnabled,
+            @Value("${audit.query.countCache.maxEntries:1000}") long maxEntries,
+            @Value("${audit.query.countCache.ttl:10s}") Duration ttl
+    ) {
+        this.repository = repository;
+        this.cacheEnabled = cacheEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "audit.count");
+    }
+
+    /**
+     * Exact or estimated number of events matching {@code filters}. Estimates fall back to an
+     * exact count on databases without planner statistics.
+     */
+    public Total count(Map<String, Object> filters, IncludeTotal mode) {
+        if (!cacheEnabled) return compute(filters, mode);
+        return cache.get(cacheKey(filters, mode), k -> compute(filters, mode));
+    }
+
+    private Total compute(Map<String, Object> filters, IncludeTotal mode) {
+        if (mode == IncludeTotal.APPROX) {
+            var estimate = repository.estimateCount(filters);
+            if (estimate.isPresent()) return new Total(estimate.getAsLong(), true);
+        }
+        long exact = filters.isEmpty() ? repository.count() : repository.countWithFilters(filters);
+        return new Total(exact, false);
+    }
+
+    private static String cacheKey(Map<String, Object> filters, IncludeTotal mode) {
+        return mode.name() + new TreeMap<>(filters);
+    }
+}
@@ -0,0 +1,164 @@
+package dev.controlplane.auditsink.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.InsertResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through caches for the lookups incident tooling repeats: events by id, and the full timeline
+ * of a correlation or trace id. Both are bounded by an estimate of their heap size in bytes, with
+ * Caffeine's frequency-based (W-TinyLFU) admission deciding what stays. Events never change once
+ * stored, so entries only expire after {@code ttl}, which bounds how long an event removed by
+ * retention can still be served. Timelines are dropped whenever this instance stores a new event
+ * with their correlation or trace id; inserts seen only by other instances, or a reload from a
+ * lagging replica, can leave a timeline short by up to {@code timelineTtl}.
+ */
+@Component
+public class EventReadCache {
+
+    /** All stored events for one correlation or trace id in (occurred_at_utc, id) order. */
+    public record Timeline(List<AuditEventEntity> events, boolean complete) {}
+
+    private record TimelineKey(String filter, String value) {}
+
+    private static final String CORRELATION = "correlationId";
+    private static final String TRACE = "traceId";
+
+    private final AuditEventRepository repository;
+    private final boolean enabled;
+    private final int maxTimelineEvents;
+    private final Cache<UUID, AuditEventEntity> events;
+    private final Cache<TimelineKey, Timeline> timelines;
+
+    public EventReadCache(
+            AuditEventRepository repository,
+            MeterRegistry registry,
+            @Value("${audit.query.eventCache.enabled:true}") boolean enabled,
+            @Value("${audit.query.eventCache.maxBytes:33554432}") long maxBytes,
+            @Value("${audit.query.eventCache.ttl:1h}") Duration ttl,
+            @Value("${audit.query.eventCache.timelineMaxBytes:33554432}") long timelineMaxBytes,
+            @Value("${audit.query.eventCache.timelineTtl:2m}") Duration timelineTtl,
+            @Value("${audit.query.eventCache.maxTimelineEvents:1000}") int maxTimelineEvents
+    ) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxTimelineEvents = maxTimelineEvents;
+        this.events = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((UUID k, AuditEventEntity v) -> weigh(v))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.timelines = Caffeine.newBuilder()
+                .maximumWeight(timelineMaxBytes)
+                .weigher((TimelineKey k, Timeline v) -> {
+                    int bytes = 64 + k.value().length();
+                    for (AuditEventEntity e : v.events()) bytes += weigh(e);
+                    return bytes;
+                })
+                .expireAfterWrite(timelineTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, events, "audit.event");
+        CaffeineCacheMetrics.monitor(registry, timelines, "audit.timeline");
+        Gauge.builder("audit.query.cache.bytes", events, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Estimated heap bytes held by the query cache")
+                .baseUnit("bytes")
+                .tag("cache", "audit.event")
+                .register(registry);
+        Gauge.builder("audit.query.cache.bytes", timelines, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Estimated heap bytes held by the query cache")
+                .baseUnit("bytes")
+                .tag("cache", "audit.timeline")
+                .register(registry);
+    }
+
+    /** The event with {@code id}, loading misses through {@code loader}; a null from the loader is not cached. */
+    public AuditEventEntity event(UUID id, Function<UUID, AuditEventEntity> loader) {
+        return enabled ? events.get(id, loader) : loader.apply(id);
+    }
+
+    /**
+     * The cached timeline for the correlation id in {@code filters}, else the trace id, loaded from
+     * the hot table on a miss. Null when caching is off or neither filter is present. A timeline of
+     * more than {@code maxTimelineEvents} events is remembered as incomplete and holds no rows.
+     */
+    public Timeline timeline(Map<String, Object> filters) {
+        if (!enabled) return null;
+        String filter = filters.containsKey(CORRELATION) ? CORRELATION : filters.containsKey(TRACE) ? TRACE : null;
+        if (filter == null) return null;
+        return timelines.get(new TimelineKey(filter, (String) filters.get(filter)), key -> {
+            List<AuditEventEntity> rows = repository.searchAfter(
+                    Map.of(key.filter(), key.value()), null, maxTimelineEvents + 1, false);
+            return rows.size() > maxTimelineEvents ? new Timeline(List.of(), false) : new Timeline(List.copyOf(rows), true);
+        });
+    }
+
+    /** Drops the timelines a newly stored event belongs to. */
+    public void record(AuditEventEntity e) {
+        if (!enabled) return;
+        if (e.correlationId != null) timelines.invalidate(new TimelineKey(CORRELATION, e.correlationId));
+        if (e.traceId != null) timelines.invalidate(new TimelineKey(TRACE, e.traceId));
+    }
+
+    /**
+     * {@link #record} for the events of a batch insert that were stored as new, given the results
+     * returned by {@code AuditEventRepository.insertBatch}.
+     */
+    public void recordInserted(List<AuditEventEntity> entities, List<InsertResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).inserted()) record(entities.get(i));
+        }
+    }
+
+    /** Whether {@code e} passes every filter, evaluated like the search SQL. */
+    public static boolean matches(AuditEventEntity e, Map<String, Object> filters) {
+        for (Map.Entry<String, Object> f : filters.entrySet()) {
+            boolean ok = switch (f.getKey()) {
+                case "tenantId" -> f.getValue().equals(e.tenantId);
+                case "actorId" -> f.getValue().equals(e.actorId);
+                case "subjectId" -> f.getValue().equals(e.subjectId);
+                case "action" -> f.getValue().equals(e.action);
+                case "outcome" -> f.getValue().equals(e.outcome);
+                case CORRELATION -> f.getValue().equals(e.correlationId);
+                case TRACE -> f.getValue().equals(e.traceId);
+                case "appId" -> f.getValue().equals(e.appId);
+                case "fromDate" -> !e.occurredAtUtc.toInstant().isBefore(((OffsetDateTime) f.getValue()).toInstant());
+                case "toDate" -> !e.occurredAtUtc.toInstant().isAfter(((OffsetDateTime) f.getValue()).toInstant());
+                default -> true;
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rough heap footprint of an entity: the object with its UUID and timestamp, plus each string at
+     * one byte per character (compact strings) and its own header.
+     */
+    static int weigh(AuditEventEntity e) {
+        int bytes = 256;
+        for (String s : new String[] {
+                e.action, e.outcome, e.subjectType, e.subjectId, e.actorId, e.actorType, e.roles, e.tenantId,
+                e.channel, e.ip, e.userAgent, e.correlationId, e.traceId, e.appId, e.trackId, e.releaseId,
+                e.jiraKey, e.snowSysId, e.policyDecisionId, e.rulePath, e.payloadHash, e.argsRedacted,
+                e.resultRedacted, e.errorType, e.errorMessageHash, e.idempotencyKey}) {
+            if (s != null) bytes += 40 + s.length();
+        }
+        return bytes;
+    }
+}
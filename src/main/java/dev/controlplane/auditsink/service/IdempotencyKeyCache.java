@@ -0,0 +1,45 @@
+package dev.controlplane.auditsink.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Bounded cache of recently seen idempotency keys and the event id stored for each, so retries of
+ * hot events are answered as duplicates without a database round trip.
+ */
+@Component
+public class IdempotencyKeyCache {
+
+    private final Cache<String, UUID> cache;
+    private final boolean enabled;
+
+    public IdempotencyKeyCache(
+            MeterRegistry registry,
+            @Value("${audit.ingest.idempotencyCache.enabled:true}") boolean enabled,
+            @Value("${audit.ingest.idempotencyCache.maxEntries:100000}") long maxEntries,
+            @Value("${audit.ingest.idempotencyCache.ttl:10m}") Duration ttl
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "audit.idempotency");
+    }
+
+    public UUID get(String idempotencyKey) {
+        return enabled ? cache.getIfPresent(idempotencyKey) : null;
+    }
+
+    public void put(String idempotencyKey, UUID eventId) {
+        if (enabled) cache.put(idempotencyKey, eventId);
+    }
+}
@@ -0,0 +1,104 @@
+package dev.controlplane.auditsink.service;
+
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.util.SlidingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding-window Bloom filter over recently ingested idempotency keys. A key the filter has never
+ * seen is definitely new and can take the insert fast path; only "maybe seen" keys pay for a
+ * dedup lookup. The filter is warmed from the database at startup and reports every key as
+ * "maybe seen" until warming completes.
+ */
+@Component
+public class IdempotencyKeyFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyFilter.class);
+
+    private final AuditEventRepository repo;
+    private final SlidingBloomFilter filter;
+    private final boolean enabled;
+    private final Duration window;
+    private volatile boolean warm;
+
+    private final Counter definitelyNewCounter;
+    private final Counter maybeSeenCounter;
+
+    public IdempotencyKeyFilter(
+            AuditEventRepository repo,
+            MeterRegistry registry,
+            @Value("${audit.ingest.idempotencyFilter.enabled:true}") boolean enabled,
+            @Value("${audit.ingest.idempotencyFilter.expectedKeysPerBucket:1000000}") long expectedKeysPerBucket,
+            @Value("${audit.ingest.idempotencyFilter.fpp:0.01}") double fpp,
+            @Value("${audit.ingest.idempotencyFilter.buckets:4}") int buckets,
+            @Value("${audit.ingest.idempotencyFilter.bucketDuration:15m}") Duration bucketDuration
+    ) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.window = bucketDuration.multipliedBy(buckets);
+        this.filter = enabled
+                ? new SlidingBloomFilter(expectedKeysPerBucket, fpp, buckets, bucketDuration.toMillis(), System::currentTimeMillis)
+                : null;
+
+        this.definitelyNewCounter = registry.counter("audit.idempotency.filter.checks", "result", "new");
+        this.maybeSeenCounter = registry.counter("audit.idempotency.filter.checks", "result", "maybe");
+        if (enabled) {
+            Gauge.builder("audit.idempotency.filter.fpp", filter, SlidingBloomFilter::expectedFpp)
+                    .description("Estimated false-positive rate of the idempotency key filter")
+                    .register(registry);
+            Gauge.builder("audit.idempotency.filter.memory", filter, SlidingBloomFilter::sizeInBytes)
+                    .baseUnit("bytes")
+                    .description("Memory held by the idempotency key filter")
+                    .register(registry);
+        }
+    }
+
+    /** True only when the key was definitely not ingested within the filter window. */
+    public boolean isDefinitelyNew(String idempotencyKey) {
+        if (!enabled || !warm) return false;
+        if (filter.mightContain(idempotencyKey)) {
+            maybeSeenCounter.increment();
+            return false;
+        }
+        definitelyNewCounter.increment();
+        return true;
+    }
+
+    public void record(String idempotencyKey) {
+        if (enabled) filter.put(idempotencyKey);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+        Thread t = new Thread(() -> {
+            // occurred_at_utc stands in for ingest time; keys outside it are still caught by the unique index
+            OffsetDateTime since = OffsetDateTime.now().minus(window);
+            AtomicLong loaded = new AtomicLong();
+            try {
+                repo.forEachIdempotencyKeySince(since, key -> {
+                    filter.put(key);
+                    loaded.incrementAndGet();
+                });
+                warm = true;
+                log.info("Idempotency key filter warmed: keys={}, since={}", loaded.get(), since);
+            } catch (Exception ex) {
+                log.warn("Idempotency key filter warm-up failed, filter stays disabled: {}", ex.getMessage());
+            }
+        }, "audit-idempotency-filter-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+}
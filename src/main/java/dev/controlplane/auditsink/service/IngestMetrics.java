@@ -0,0 +1,102 @@
+package dev.controlplane.auditsink.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and size meters for the ingest path, all with percentile histograms:
+ * <ul>
+ *   <li>{@code audit.ingest.stage{stage, path, outcome}}: time per stage (bind, key, redact,
+ *       dedup_lookup, insert, enqueue) for single events and batches</li>
+ *   <li>{@code audit.ingest.request{path, mode, outcome, producer}}: whole ingest call</li>
+ *   <li>{@code audit.ingest.payload.size{part, producer}}: redacted payload JSON in bytes</li>
+ * </ul>
+ * Only the first {@code audit.metrics.maxProducers} producer ids get their own tag value; later
+ * ones are reported as {@code other}. Stage timers carry no producer tag to keep series bounded.
+ */
+@Component
+public class IngestMetrics {
+
+    public enum Stage {
+        BIND, KEY, REDACT, DEDUP_LOOKUP, INSERT, ENQUEUE;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final int maxProducers;
+    private final Set<String> producers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public IngestMetrics(MeterRegistry registry, @Value("${audit.metrics.maxProducers:100}") int maxProducers) {
+        this.registry = registry;
+        this.maxProducers = maxProducers;
+    }
+
+    public void recordStage(Stage stage, boolean batch, String outcome, long startNanos) {
+        String path = batch ? "batch" : "single";
+        timers.computeIfAbsent("stage|" + stage.tag + "|" + path + "|" + outcome, k -> Timer.builder("audit.ingest.stage")
+                        .description("Time spent in one stage of ingesting an event or batch")
+                        .tag("stage", stage.tag)
+                        .tag("path", path)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(10_000))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRequest(boolean batch, String mode, String outcome, String producerId, long startNanos) {
+        String path = batch ? "batch" : "single";
+        String producer = producerTag(producerId);
+        timers.computeIfAbsent("request|" + path + "|" + mode + "|" + outcome + "|" + producer, k -> Timer.builder("audit.ingest.request")
+                        .description("Time to ingest an event or batch, from bound request to response")
+                        .tag("path", path)
+                        .tag("mode", mode)
+                        .tag("outcome", outcome)
+                        .tag("producer", producer)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(50_000))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayloadSize(String part, String producerId, String json) {
+        if (json == null) return;
+        String producer = producerTag(producerId);
+        summaries.computeIfAbsent(part + "|" + producer, k -> DistributionSummary.builder("audit.ingest.payload.size")
+                        .description("Size of the stored, redacted payload JSON")
+                        .baseUnit("bytes")
+                        .tag("part", part)
+                        .tag("producer", producer)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(16.0)
+                        .maximumExpectedValue(1_048_576.0)
+                        .register(registry))
+                .record(json.length());
+    }
+
+    /** The producer id itself while fewer than {@code maxProducers} have been seen, else {@code other}. */
+    String producerTag(String producerId) {
+        if (producerId == null || producerId.isBlank()) return "unknown";
+        if (producers.contains(producerId)) return producerId;
+        if (producers.size() >= maxProducers) return OTHER;
+        producers.add(producerId);
+        return producerId;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.controlplane.auditsink.service;
+
+/**
+ * Thrown when the async ingest pipeline cannot accept an event because its queue is full
+ * and the configured backpressure policy is to reject.
+ */
+public class IngestRejectedException extends RuntimeException {
+    public IngestRejectedException(String message) {
+        super(message);
+    }
+}
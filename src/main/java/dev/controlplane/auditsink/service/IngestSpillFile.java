@@ -0,0 +1,157 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only NDJSON overflow file used when the async ingest queue is full. Spilled entities are
+ * replayed by the writer threads once the queue has drained. Guarded by a lock rather than
+ * {@code synchronized} so a virtual thread blocked in file I/O does not pin its carrier.
+ */
+class IngestSpillFile {
+
+    /** Stores one chunk of spilled entities; throwing leaves the chunk to be replayed again. */
+    interface ChunkSink {
+        void accept(List<AuditEventEntity> chunk) throws IOException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(IngestSpillFile.class);
+
+    private final Path active;
+    private final Path draining;
+    private final ObjectMapper mapper;
+    private final QuarantineFile quarantine;
+    private final ReentrantLock lock = new ReentrantLock();
+    private OutputStream out;
+    private long pending;
+    private boolean drainPending;
+    /** Lines of the draining file already stored or quarantined; only touched by the drainer. */
+    private long drainedLines;
+
+    IngestSpillFile(Path dir, ObjectMapper mapper, QuarantineFile quarantine) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill directory " + dir, e);
+        }
+        this.active = dir.resolve("ingest-spill.ndjson");
+        this.draining = dir.resolve("ingest-spill.draining.ndjson");
+        this.mapper = mapper;
+        this.quarantine = quarantine;
+        this.pending = Files.exists(active) ? 1 : 0;
+        this.drainPending = Files.exists(draining);
+    }
+
+    void append(AuditEventEntity e) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(e);
+        lock.lock();
+        try {
+            if (out == null) {
+                out = Files.newOutputStream(active, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            out.write(json);
+            out.write('\n');
+            out.flush();
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean hasPending() {
+        lock.lock();
+        try {
+            return pending > 0 || drainPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands spilled entities to {@code sink} in chunks of {@code chunkSize}. The file stays pending
+     * until every line has been stored or quarantined and it is deleted; after a failure the next
+     * drain resumes after the last chunk the sink accepted. Lines that cannot be parsed, such as a
+     * torn last line after a crash, are quarantined rather than blocking the rest of the file.
+     */
+    void drain(int chunkSize, ChunkSink sink) throws IOException {
+        lock.lock();
+        try {
+            if (!drainPending) {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                if (!Files.exists(active)) {
+                    pending = 0;
+                    return;
+                }
+                Files.move(active, draining, StandardCopyOption.ATOMIC_MOVE);
+                pending = 0;
+                drainPending = true;
+                drainedLines = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+        long replayed = 0;
+        long lineNo = 0;
+        try (BufferedReader reader = Files.newBufferedReader(draining, StandardCharsets.UTF_8)) {
+            List<AuditEventEntity> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (lineNo <= drainedLines || line.isBlank()) continue;
+                AuditEventEntity e;
+                try {
+                    e = mapper.readValue(line, AuditEventEntity.class);
+                } catch (IOException bad) {
+                    // store what precedes the bad line first, so the offset can move past it
+                    if (!chunk.isEmpty()) {
+                        sink.accept(chunk);
+                        replayed += chunk.size();
+                        drainedLines = lineNo - 1;
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                    quarantine.add(line.getBytes(StandardCharsets.UTF_8), "unparseable spill line: " + bad.getMessage());
+                    drainedLines = lineNo;
+                    continue;
+                }
+                chunk.add(e);
+                if (chunk.size() == chunkSize) {
+                    sink.accept(chunk);
+                    replayed += chunk.size();
+                    drainedLines = lineNo;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                sink.accept(chunk);
+                replayed += chunk.size();
+            }
+        }
+        Files.delete(draining);
+        lock.lock();
+        try {
+            drainPending = false;
+            drainedLines = 0;
+        } finally {
+            lock.unlock();
+        }
+        log.info("Replayed {} spilled audit events", replayed);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.controlplane.auditsink.service;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded or is used with a sort it does not support.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.controlplane.auditsink.service;
+
+/**
+ * Thrown when a query parameter has a value the query endpoints do not understand.
+ */
+public class InvalidQueryException extends RuntimeException {
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
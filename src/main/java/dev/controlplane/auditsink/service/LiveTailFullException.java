@@ -0,0 +1,11 @@
+package dev.controlplane.auditsink.service;
+
+/**
+ * Thrown when a live tail cannot be opened because {@code audit.tail.maxSubscribers} streams are
+ * already connected.
+ */
+public class LiveTailFullException extends RuntimeException {
+    public LiveTailFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,254 @@
+package dev.controlplane.auditsink.service;
+
+import dev.controlplane.auditsink.model.AuditEventResponse;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.InsertResult;
+import dev.controlplane.auditsink.store.PageCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * In-process fan-out of newly stored events to live tail streams ({@code GET /audit/events/stream}).
+ * Every subscriber has a bounded buffer drained by a small pool of sender threads, so a slow client
+ * never holds up ingest: when its buffer is full it is disconnected and can reconnect with
+ * {@code Last-Event-ID} to backfill what it missed from the database. Event ids are page cursors,
+ * so the backfill resumes after the last delivered event in (occurred_at_utc, id) order. Events
+ * stored while the client was away with an occurred_at_utc before that point are not replayed; every
+ * resumed stream starts with a {@code resume-gap} message saying so.
+ */
+@Component
+public class LiveTailHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveTailHub.class);
+
+    static final String EVENT = "audit-event";
+    static final String TRUNCATED = "backfill-truncated";
+    static final String RESUME_GAP = "resume-gap";
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int maxBackfill;
+    private final long timeoutMs;
+
+    private final Counter publishedCounter;
+    private final Counter deliveredCounter;
+    private final Counter droppedCounter;
+    private final Counter backfilledCounter;
+
+    public LiveTailHub(
+            MeterRegistry registry,
+            @Value("${audit.tail.bufferSize:1000}") int bufferSize,
+            @Value("${audit.tail.maxSubscribers:100}") int maxSubscribers,
+            @Value("${audit.tail.maxBackfill:1000}") int maxBackfill,
+            @Value("${audit.tail.senderThreads:2}") int senderThreads,
+            @Value("${audit.tail.timeout:30m}") Duration timeout
+    ) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.maxBackfill = maxBackfill;
+        this.timeoutMs = timeout.toMillis();
+        this.publishedCounter = registry.counter("audit.tail.published");
+        this.deliveredCounter = registry.counter("audit.tail.delivered");
+        this.droppedCounter = registry.counter("audit.tail.dropped");
+        this.backfilledCounter = registry.counter("audit.tail.backfilled");
+        Gauge.builder("audit.tail.subscribers", connected, AtomicInteger::get)
+                .description("Connected live tail streams")
+                .register(registry);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "audit-tail-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens a stream of events matching {@code filters}. With a {@code backfill}, the rows it returns
+     * for a limit of {@code maxBackfill + 1} are sent first; the subscription is registered before
+     * the backfill runs, so events stored meanwhile are delivered once, after it.
+     */
+    public SseEmitter subscribe(Map<String, Object> filters, IntFunction<List<AuditEventEntity>> backfill,
+                                Function<AuditEventEntity, AuditEventResponse> mapper) {
+        int n;
+        do {
+            n = connected.get();
+            if (n >= maxSubscribers) {
+                throw new LiveTailFullException("Live tail is at its limit of " + maxSubscribers + " streams");
+            }
+        } while (!connected.compareAndSet(n, n + 1));
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber s = new Subscriber(Map.copyOf(filters), emitter, mapper, bufferSize);
+        emitter.onCompletion(() -> remove(s));
+        emitter.onTimeout(() -> close(s));
+        emitter.onError(e -> remove(s));
+        subscribers.add(s);
+
+        if (backfill != null) {
+            try {
+                emitter.send(SseEmitter.event().name(RESUME_GAP)
+                        .data(Map.of("orderedBy", "occurredAtUtc", "lateEventsReplayed", false)));
+                List<AuditEventEntity> rows = backfill.apply(maxBackfill + 1);
+                int sent = Math.min(rows.size(), maxBackfill);
+                for (int i = 0; i < sent; i++) {
+                    AuditEventEntity e = rows.get(i);
+                    s.backfilled.add(e.id);
+                    s.send(e);
+                }
+                backfilledCounter.increment(sent);
+                if (rows.size() > maxBackfill) {
+                    emitter.send(SseEmitter.event().name(TRUNCATED).data(Map.of("maxBackfill", maxBackfill)));
+                }
+            } catch (IOException ex) {
+                remove(s);
+                throw new UncheckedIOException(ex);
+            } catch (RuntimeException ex) {
+                remove(s);
+                throw ex;
+            }
+        }
+        s.live = true;
+        s.schedule();
+        log.debug("Live tail opened: filters={}, backfill={}, subscribers={}",
+                filters.keySet(), backfill != null, connected.get());
+        return emitter;
+    }
+
+    /** Hands a newly stored event to every subscriber whose filters it matches. */
+    public void publish(AuditEventEntity e) {
+        if (subscribers.isEmpty()) return;
+        publishedCounter.increment();
+        for (Subscriber s : subscribers) {
+            if (!EventReadCache.matches(e, s.filters)) continue;
+            if (!s.queue.offer(e)) {
+                droppedCounter.increment();
+                log.warn("Dropping slow live tail subscriber: buffered={}, filters={}", s.queue.size(), s.filters.keySet());
+                close(s);
+                continue;
+            }
+            s.schedule();
+        }
+    }
+
+    /**
+     * {@link #publish} for the events of a batch insert that were stored as new, given the results
+     * returned by {@code AuditEventRepository.insertBatch}.
+     */
+    public void publishInserted(List<AuditEventEntity> entities, List<InsertResult> results) {
+        if (subscribers.isEmpty()) return;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).inserted()) publish(entities.get(i));
+        }
+    }
+
+    /** Keeps idle streams open through proxies and notices clients that went away. */
+    @Scheduled(initialDelayString = "${audit.tail.heartbeat:PT15S}",
+               fixedDelayString = "${audit.tail.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            s.heartbeatDue = true;
+            s.schedule();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber s : subscribers) close(s);
+        senders.shutdownNow();
+    }
+
+    private void close(Subscriber s) {
+        remove(s);
+        s.emitter.complete();
+    }
+
+    /** Frees the subscriber's slot; the emitter callbacks and the sender may all get here. */
+    private void remove(Subscriber s) {
+        if (subscribers.remove(s)) connected.decrementAndGet();
+    }
+
+    private final class Subscriber {
+        final Map<String, Object> filters;
+        final SseEmitter emitter;
+        final Function<AuditEventEntity, AuditEventResponse> mapper;
+        final BlockingQueue<AuditEventEntity> queue;
+        final Set<UUID> backfilled = new HashSet<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean live;
+        volatile boolean heartbeatDue;
+
+        Subscriber(Map<String, Object> filters, SseEmitter emitter,
+                   Function<AuditEventEntity, AuditEventResponse> mapper, int bufferSize) {
+            this.filters = filters;
+            this.emitter = emitter;
+            this.mapper = mapper;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void schedule() {
+            if (live && scheduled.compareAndSet(false, true)) senders.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    if (heartbeatDue) {
+                        heartbeatDue = false;
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    }
+                    AuditEventEntity e = queue.poll();
+                    if (e == null) {
+                        scheduled.set(false);
+                        // an event offered after the poll but before the reset would otherwise wait
+                        if ((queue.isEmpty() && !heartbeatDue) || !scheduled.compareAndSet(false, true)) return;
+                        continue;
+                    }
+                    if (!backfilled.isEmpty() && backfilled.remove(e.id)) continue;
+                    send(e);
+                    deliveredCounter.increment();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // the client went away or the emitter already completed
+                remove(this);
+                scheduled.set(false);
+            }
+        }
+
+        void send(AuditEventEntity e) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(PageCursor.of(e).encode())
+                    .name(EVENT)
+                    .data(mapper.apply(e), MediaType.APPLICATION_JSON));
+        }
+    }
+}
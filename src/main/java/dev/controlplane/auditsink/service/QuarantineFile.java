@@ -0,0 +1,62 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only NDJSON file of records that can never be stored, kept for an operator to inspect or
+ * replay by hand. Each line holds the time, the reason and the record base64-encoded, since a
+ * record may not be valid JSON. Lines are fsynced before {@link #add} returns, so a caller can
+ * safely drop the record afterwards.
+ */
+public class QuarantineFile {
+
+    private static final Logger log = LoggerFactory.getLogger(QuarantineFile.class);
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final Counter counter;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public QuarantineFile(Path file, ObjectMapper mapper, Counter counter) {
+        this.file = file;
+        this.mapper = mapper;
+        this.counter = counter;
+    }
+
+    public void add(byte[] record, String reason) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("quarantinedAt", Instant.now().toString());
+        line.put("reason", reason);
+        line.put("record", Base64.getEncoder().encodeToString(record));
+        byte[] bytes = (mapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+        lock.lock();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ch.write(ByteBuffer.wrap(bytes));
+                ch.force(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+        counter.increment();
+        log.error("Quarantined audit event record to {}: {}", file, reason);
+    }
+}
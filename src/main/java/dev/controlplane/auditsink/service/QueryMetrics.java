@@ -0,0 +1,38 @@
+package dev.controlplane.auditsink.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code audit.query.phase{op, phase}} timers with percentile histograms: {@code op} is list,
+ * search, cursor or get, {@code phase} is fetch (hot table), cache (answered from a cached timeline),
+ * archive, count or map.
+ */
+@Component
+public class QueryMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordPhase(String op, String phase, long startNanos) {
+        timers.computeIfAbsent(op + "|" + phase, k -> Timer.builder("audit.query.phase")
+                        .description("Time spent in one phase of answering an event query")
+                        .tag("op", op)
+                        .tag("phase", phase)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(10_000))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import dev.controlplane.auditsink.model.AuditEventRequest;
+
+import java.io.IOException;
+
+/**
+ * Binds {@link AuditEventRequest.Payload} without materializing {@code argsRedacted} and
+ * {@code resultRedacted} as object trees: their tokens are piped from the request parser through
+ * {@link RedactionService} directly into size-capped, redacted JSON.
+ */
+public class RawPayloadDeserializer extends StdDeserializer<AuditEventRequest.Payload> {
+
+    private final RedactionService redactionService;
+
+    public RawPayloadDeserializer(RedactionService redactionService) {
+        super(AuditEventRequest.Payload.class);
+        this.redactionService = redactionService;
+    }
+
+    @Override
+    public AuditEventRequest.Payload deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return (AuditEventRequest.Payload) ctxt.handleUnexpectedToken(AuditEventRequest.Payload.class, p);
+        }
+        String argsJson = null;
+        String resultJson = null;
+        String payloadHash = null;
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            p.nextToken();
+            switch (field) {
+                case "argsRedacted" -> argsJson = redactionService.redactAndCap(p);
+                case "resultRedacted" -> resultJson = redactionService.redactAndCap(p);
+                case "payloadHash" -> payloadHash = p.currentToken() == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+                default -> p.skipChildren();
+            }
+        }
+        return new AuditEventRequest.Payload(null, null, payloadHash, argsJson, resultJson);
+    }
+}
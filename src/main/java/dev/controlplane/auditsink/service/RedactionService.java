@@ -1,69 +1,244 @@
 package dev.controlplane.auditsink.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Redacts configured keys (case-insensitively, at any depth) and serializes the result to JSON in a
+ * single pass: the input is never copied, values are written straight into a reused per-thread
+ * buffer, and serialization stops as soon as the output exceeds {@code maxBytes}.
+ */
 @Component
 public class RedactionService {
-    private final List<String> redactKeys;
+    private static final String MASK = "***";
+    private static final String FAILED = "{\"error\":\"redaction-serialization-failed\"}";
+
+    private final KeyMatcher redactKeys;
     private final int maxBytes;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final String truncated;
+    private final JsonFactory factory;
+    private final ThreadLocal<CappedBuffer> buffers;
 
     public RedactionService(
             @Value("${audit.redaction.redactKeys:}") List<String> redactKeys,
             @Value("${audit.payload.maxJsonBytes:4096}") int maxBytes
     ) {
-        this.redactKeys = redactKeys;
+        this.redactKeys = new KeyMatcher(redactKeys);
         this.maxBytes = maxBytes;
+        this.truncated = "{\"truncated\":true,\"maxBytes\":" + maxBytes + "}";
+        this.factory = new ObjectMapper().getFactory();
+        this.buffers = ThreadLocal.withInitial(() -> new CappedBuffer(maxBytes));
     }
 
-    @SuppressWarnings("unchecked")
     public String redactAndCap(Map<String, Object> original) {
         if (original == null) return null;
-        Map<String, Object> copy = deepCopy(original);
-        maskRecursive(copy);
+        CappedBuffer out = buffers.get().reset();
         try {
-            String json = mapper.writeValueAsString(copy);
-            if (json.getBytes().length > maxBytes) {
-                return mapper.writeValueAsString(Map.of("truncated", true, "sizeBytes", json.getBytes().length));
+            // not try-with-resources: closing would flush into the full buffer and rethrow the same CapExceeded
+            JsonGenerator gen = factory.createGenerator(out);
+            writeValue(gen, out, original);
+            gen.close();
+        } catch (CapExceeded e) {
+            return truncated;
+        } catch (IOException e) {
+            return FAILED;
+        }
+        return out.asString();
+    }
+
+    /**
+     * Streams the JSON value at the parser's current token straight into the output, masking
+     * redacted keys and skipping their values unread. The parser is always left on the value's
+     * last token, even when the output was truncated, so the caller can continue parsing.
+     */
+    public String redactAndCap(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == null || t == JsonToken.VALUE_NULL) return null;
+        CappedBuffer out = buffers.get().reset();
+        JsonGenerator gen = factory.createGenerator(out);
+        boolean capped = false;
+        int depth = 0;
+        while (true) {
+            try {
+                if (t == JsonToken.FIELD_NAME && redactKeys.matches(p.currentName())) {
+                    if (!capped) {
+                        gen.writeFieldName(p.currentName());
+                        gen.writeString(MASK);
+                    }
+                    p.nextToken();
+                    p.skipChildren();
+                } else {
+                    if (!capped) gen.copyCurrentEvent(p);
+                    if (t.isStructStart()) depth++;
+                    else if (t.isStructEnd()) depth--;
+                }
+                if (!capped && out.size() + gen.getOutputBuffered() > maxBytes) capped = true;
+            } catch (CapExceeded e) {
+                capped = true;
             }
-            return json;
-        } catch (JsonProcessingException e) {
-            return "{\"error\":\"redaction-serialization-failed\"}";
+            if (depth == 0) break;
+            t = p.nextToken();
+            if (t == null) throw new EOFException("Unexpected end of input inside payload");
+        }
+        if (capped) return truncated;
+        try {
+            gen.close();
+        } catch (CapExceeded e) {
+            return truncated;
         }
+        return out.asString();
     }
 
-    @SuppressWarnings("unchecked")
-    private void maskRecursive(Object node) {
-        if (node instanceof Map<?,?> m) {            Map<Object, Object> mutableMap = (Map<Object, Object>) m;
-            for (Map.Entry<Object, Object> e : mutableMap.entrySet()) {
-                if (e.getKey() != null && redactKeys.stream().anyMatch(k -> k.equalsIgnoreCase(e.getKey().toString()))) {
-                    e.setValue("***");
+    private void writeValue(JsonGenerator gen, CappedBuffer out, Object v) throws IOException {
+        if (v == null) {
+            gen.writeNull();
+        } else if (v instanceof String s) {
+            gen.writeString(s);
+        } else if (v instanceof Map<?, ?> m) {
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                String key = String.valueOf(e.getKey());
+                gen.writeFieldName(key);
+                if (e.getKey() != null && redactKeys.matches(key)) {
+                    gen.writeString(MASK);
                 } else {
-                    maskRecursive(e.getValue());
+                    writeValue(gen, out, e.getValue());
                 }
-            }        } else if (node instanceof Iterable<?> it) {
-            for (Object child : it) maskRecursive(child);
+            }
+            gen.writeEndObject();
+        } else if (v instanceof Iterable<?> it) {
+            gen.writeStartArray();
+            for (Object child : it) writeValue(gen, out, child);
+            gen.writeEndArray();
+        } else if (v instanceof Object[] arr) {
+            gen.writeStartArray();
+            for (Object child : arr) writeValue(gen, out, child);
+            gen.writeEndArray();
+        } else if (v instanceof Boolean b) {
+            gen.writeBoolean(b);
+        } else if (v instanceof Integer || v instanceof Long || v instanceof Short || v instanceof Byte) {
+            gen.writeNumber(((Number) v).longValue());
+        } else if (v instanceof Double d) {
+            gen.writeNumber(d);
+        } else if (v instanceof Float f) {
+            gen.writeNumber(f);
+        } else if (v instanceof BigDecimal d) {
+            gen.writeNumber(d);
+        } else if (v instanceof BigInteger i) {
+            gen.writeNumber(i);
+        } else {
+            gen.writeObject(v);
+        }
+        // the generator buffers internally, so check what it holds as well as what it has flushed
+        if (out.size() + gen.getOutputBuffered() > maxBytes) throw CapExceeded.INSTANCE;
+    }
+
+    /** Case-insensitive exact-match lookup over a fixed key set, without allocating per lookup. */
+    private static final class KeyMatcher {
+        private final String[] table;
+        private final int mask;
+
+        KeyMatcher(List<String> keys) {
+            int size = Integer.highestOneBit(Math.max(4, keys.size() * 4 - 1)) << 1;
+            this.table = new String[size];
+            this.mask = size - 1;
+            for (String k : keys) {
+                if (k == null || matches(k)) continue;
+                int i = hash(k) & mask;
+                while (table[i] != null) i = (i + 1) & mask;
+                table[i] = k;
+            }
+        }
+
+        boolean matches(String key) {
+            int i = hash(key) & mask;
+            String candidate;
+            while ((candidate = table[i]) != null) {
+                if (candidate.length() == key.length() && candidate.regionMatches(true, 0, key, 0, key.length())) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int hash(String s) {
+            int h = 0;
+            for (int i = 0; i < s.length(); i++) {
+                // same folding as String.equalsIgnoreCase, so equal-ignoring-case keys hash alike
+                h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+            }
+            return h ^ (h >>> 16);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> deepCopy(Map<String, Object> in) {
-        Map<String, Object> out = new HashMap<>();
-        for (Map.Entry<String, Object> e : in.entrySet()) {
-            Object v = e.getValue();
-            if (v instanceof Map<?,?> m) {
-                out.put(e.getKey(), deepCopy((Map<String, Object>) m));
-            } else {
-                out.put(e.getKey(), v);
+    /** Growable byte buffer that refuses to grow past the cap. */
+    private static final class CappedBuffer extends OutputStream {
+        private final int cap;
+        private byte[] buf;
+        private int count;
+
+        CappedBuffer(int cap) {
+            this.cap = cap;
+            this.buf = new byte[Math.min(cap + 1, 512)];
+        }
+
+        CappedBuffer reset() {
+            count = 0;
+            return this;
+        }
+
+        int size() {
+            return count;
+        }
+
+        String asString() {
+            return new String(buf, 0, count, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensure(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void ensure(int len) {
+            int needed = count + len;
+            if (needed > cap) throw CapExceeded.INSTANCE;
+            if (needed > buf.length) {
+                byte[] bigger = new byte[Math.min(cap, Math.max(needed, buf.length * 2))];
+                System.arraycopy(buf, 0, bigger, 0, count);
+                buf = bigger;
             }
         }
-        return out;
+    }
+
+    private static final class CapExceeded extends RuntimeException {
+        static final CapExceeded INSTANCE = new CapExceeded();
+
+        private CapExceeded() {
+            super("payload exceeds maxJsonBytes", null, false, false);
+        }
     }
 }
@@ -0,0 +1,156 @@
+package dev.controlplane.auditsink.service;
+
+import dev.controlplane.auditsink.model.SearchPatternReport;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records which filter combinations event searches use and how long their page and count queries
+ * take, so indexes can be chosen from real traffic. Only filter names are kept, never values. At most
+ * {@code maxPatterns} combinations are tracked; calls for further ones are only counted.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.diagnostics.searchPatterns.enabled", havingValue = "true")
+public class SearchPatternStats {
+
+    // equality filters and their columns, in the order the search SQL applies them
+    private static final Map<String, String> COLUMNS = new LinkedHashMap<>();
+    static {
+        COLUMNS.put("tenantId", "tenant_id");
+        COLUMNS.put("actorId", "actor_id");
+        COLUMNS.put("subjectId", "subject_id");
+        COLUMNS.put("action", "action");
+        COLUMNS.put("outcome", "outcome");
+        COLUMNS.put("correlationId", "correlation_id");
+        COLUMNS.put("traceId", "trace_id");
+        COLUMNS.put("appId", "app_id");
+    }
+
+    private record Key(String paging, List<String> filters, String sortBy) {}
+
+    private static final class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder countCalls = new LongAdder();
+        final LongAdder countNanos = new LongAdder();
+    }
+
+    private final AuditEventRepository repository;
+    private final int maxPatterns;
+    private final Map<Key, Stats> patterns = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private final AtomicLong since = new AtomicLong(System.currentTimeMillis());
+
+    public SearchPatternStats(AuditEventRepository repository,
+                              @Value("${audit.diagnostics.searchPatterns.maxPatterns:500}") int maxPatterns) {
+        this.repository = repository;
+        this.maxPatterns = maxPatterns;
+    }
+
+    /** Records one page ({@code count == false}) or total ({@code count == true}) query. */
+    public void record(String paging, Map<String, Object> filters, String sortBy, boolean count, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        Stats stats = stats(new Key(paging, filterNames(filters), sortBy));
+        if (stats == null) {
+            untracked.increment();
+            return;
+        }
+        if (count) {
+            stats.countCalls.increment();
+            stats.countNanos.add(nanos);
+        } else {
+            stats.calls.increment();
+            stats.nanos.add(nanos);
+            stats.maxNanos.accumulate(nanos);
+        }
+    }
+
+    public SearchPatternReport report() {
+        Map<String, List<String>> indexes = repository.indexColumns();
+        List<SearchPatternReport.Pattern> out = new ArrayList<>();
+        patterns.forEach((key, s) -> {
+            long calls = s.calls.sum();
+            long countCalls = s.countCalls.sum();
+            List<String> equality = key.filters().stream().filter(COLUMNS::containsKey).map(COLUMNS::get).toList();
+            String order = key.filters().contains("fromDate") || key.filters().contains("toDate")
+                    ? "occurred_at_utc" : key.sortBy();
+            String index = bestIndex(indexes, equality, order);
+            String suggested = null;
+            if (!leadsWithAny(indexes, equality.isEmpty() ? List.of(order) : equality)) {
+                List<String> columns = new ArrayList<>(equality);
+                if (!columns.contains(order)) columns.add(order);
+                suggested = "audit_event(" + String.join(", ", columns) + ")";
+            }
+            out.add(new SearchPatternReport.Pattern(key.paging(), key.filters(), key.sortBy(),
+                    calls, millis(calls == 0 ? 0 : s.nanos.sum() / calls), millis(s.maxNanos.get()), millis(s.nanos.sum()),
+                    countCalls, millis(countCalls == 0 ? 0 : s.countNanos.sum() / countCalls), index, suggested));
+        });
+        out.sort(Comparator.comparingDouble(SearchPatternReport.Pattern::totalMs).reversed());
+        return new SearchPatternReport(
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(since.get()), ZoneOffset.UTC), out, untracked.sum());
+    }
+
+    public void reset() {
+        patterns.clear();
+        untracked.reset();
+        since.set(System.currentTimeMillis());
+    }
+
+    private Stats stats(Key key) {
+        Stats stats = patterns.get(key);
+        if (stats != null) return stats;
+        if (patterns.size() >= maxPatterns) return null;
+        return patterns.computeIfAbsent(key, k -> new Stats());
+    }
+
+    private static List<String> filterNames(Map<String, Object> filters) {
+        return filters.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * The index whose leading columns match the most equality columns, with one more point when the
+     * column after them is the order column; null when none leads with a usable column.
+     */
+    private static String bestIndex(Map<String, List<String>> indexes, List<String> equality, String order) {
+        String best = null;
+        int bestScore = 0;
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            List<String> columns = index.getValue();
+            int i = 0;
+            while (i < columns.size() && equality.contains(columns.get(i))) i++;
+            int score = i * 2 + (i < columns.size() && columns.get(i).equals(order) ? 1 : 0);
+            if (score > bestScore) {
+                best = index.getKey();
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static boolean leadsWithAny(Map<String, List<String>> indexes, List<String> columns) {
+        for (List<String> index : indexes.values()) {
+            if (!index.isEmpty() && columns.contains(index.get(0))) return true;
+        }
+        return false;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,352 @@
+package dev.controlplane.auditsink.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.controlplane.auditsink.rollup.RollupAggregator;
+import dev.controlplane.auditsink.service.EventReadCache;
+import dev.controlplane.auditsink.service.IdempotencyKeyCache;
+import dev.controlplane.auditsink.service.IdempotencyKeyFilter;
+import dev.controlplane.auditsink.service.LiveTailHub;
+import dev.controlplane.auditsink.service.QuarantineFile;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import dev.controlplane.auditsink.store.AuditEventRepository;
+import dev.controlplane.auditsink.store.InsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable ingest for {@code audit.ingest.mode=durable}. Events are appended to a local
+ * memory-mapped {@link SegmentLog} and acknowledged once a group-commit fsync covers them; a
+ * background replayer then drains the log into the database, checkpointing its position and
+ * deleting fully replayed segments. The database can be slow or down without losing events.
+ * Records that cannot be decoded, or that the database rejects outright once a batch has failed
+ * {@code replayMaxAttempts} times, are moved to {@code quarantine.ndjson} in the spool directory so
+ * they cannot stall replay.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.ingest.mode", havingValue = "durable")
+public class DurableIngestSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableIngestSpool.class);
+
+    private final AuditEventRepository repo;
+    private final ObjectMapper mapper;
+    private final SegmentLog segmentLog;
+    private final RollupAggregator rollups;
+    private final EventReadCache readCache;
+    private final LiveTailHub tail;
+    private final IdempotencyKeyCache idempotencyCache;
+    private final IdempotencyKeyFilter idempotencyFilter;
+    private final long groupCommitNanos;
+    private final int replayBatchSize;
+    private final long replayIdleMs;
+    private final long syncTimeoutNanos;
+    private final long maxBytes;
+    private final int replayMaxAttempts;
+    private final QuarantineFile quarantine;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition pending = syncLock.newCondition();
+    private final Condition synced = syncLock.newCondition();
+    private volatile boolean running = true;
+    private volatile SpoolPosition checkpoint;
+    private volatile RuntimeException fsyncFailure;
+
+    private final Thread flusher;
+    private final Thread replayer;
+
+    private final Timer fsyncTimer;
+    private final DistributionSummary groupSizeSummary;
+    private final Counter replayedCounter;
+    private final Counter ingestedCounter;
+    private final Counter dedupCounter;
+    private final Counter corruptCounter;
+    private final Counter fsyncFailedCounter;
+    private final Counter fullCounter;
+
+    public DurableIngestSpool(
+            AuditEventRepository repo,
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            Optional<RollupAggregator> rollups,
+            EventReadCache readCache,
+            LiveTailHub tail,
+            IdempotencyKeyCache idempotencyCache,
+            IdempotencyKeyFilter idempotencyFilter,
+            @Value("${audit.ingest.durable.dir:./data/spool}") String dir,
+            @Value("${audit.ingest.durable.segmentBytes:67108864}") int segmentBytes,
+            @Value("${audit.ingest.durable.groupCommitMicros:1000}") long groupCommitMicros,
+            @Value("${audit.ingest.durable.replayBatchSize:500}") int replayBatchSize,
+            @Value("${audit.ingest.durable.replayIdleMs:50}") long replayIdleMs,
+            @Value("${audit.ingest.durable.syncTimeoutMs:10000}") long syncTimeoutMs,
+            @Value("${audit.ingest.durable.maxBytes:4294967296}") long maxBytes,
+            @Value("${audit.ingest.durable.replayMaxAttempts:5}") int replayMaxAttempts
+    ) throws IOException {
+        this.repo = repo;
+        this.mapper = objectMapper;
+        this.rollups = rollups.orElse(null);
+        this.readCache = readCache;
+        this.tail = tail;
+        this.idempotencyCache = idempotencyCache;
+        this.idempotencyFilter = idempotencyFilter;
+        this.segmentLog = new SegmentLog(Path.of(dir), segmentBytes);
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.replayBatchSize = replayBatchSize;
+        this.replayIdleMs = replayIdleMs;
+        this.syncTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(syncTimeoutMs);
+        this.maxBytes = maxBytes;
+        this.replayMaxAttempts = replayMaxAttempts;
+        this.checkpoint = segmentLog.readCheckpoint();
+
+        this.fsyncTimer = Timer.builder("audit.spool.fsync")
+                .description("Time per group-commit fsync of the ingest spool")
+                .register(registry);
+        this.groupSizeSummary = DistributionSummary.builder("audit.spool.group.size")
+                .description("Events made durable per fsync")
+                .register(registry);
+        this.replayedCounter = registry.counter("audit.spool.replayed");
+        this.corruptCounter = registry.counter("audit.spool.corrupt");
+        this.fsyncFailedCounter = registry.counter("audit.spool.fsync.failed");
+        this.fullCounter = registry.counter("audit.spool.full");
+        this.quarantine = new QuarantineFile(Path.of(dir).resolve("quarantine.ndjson"), objectMapper,
+                registry.counter("audit.spool.quarantined"));
+        this.ingestedCounter = registry.counter("audit.events.ingested");
+        this.dedupCounter = registry.counter("audit.events.deduped");
+        Gauge.builder("audit.spool.backlog.bytes", this, DurableIngestSpool::backlogBytes)
+                .description("Durable spool bytes not yet replayed into the database")
+                .register(registry);
+
+        this.flusher = new Thread(this::flushLoop, "audit-spool-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        this.replayer = new Thread(this::replayLoop, "audit-spool-replayer");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+        log.info("Durable ingest spool started: dir={}, segmentBytes={}, checkpoint={}", dir, segmentBytes, checkpoint);
+    }
+
+    /** Appends the entity to the spool and blocks until it is on disk. */
+    public void append(AuditEventEntity e) {
+        appendAll(List.of(e));
+    }
+
+    /**
+     * Appends the entities and blocks until they are on disk, for at most {@code syncTimeoutMs}.
+     *
+     * @throws SpoolUnavailableException when the spool holds {@code maxBytes} not yet replayed, an
+     *         append or fsync fails, or the fsync does not complete in time
+     */
+    public void appendAll(List<AuditEventEntity> entities) {
+        if (!running) {
+            throw new IllegalStateException("Durable ingest spool is shutting down");
+        }
+        if (maxBytes > 0 && backlogBytes() >= maxBytes) {
+            fullCounter.increment();
+            throw new SpoolUnavailableException("Durable spool is full (" + maxBytes + " bytes awaiting replay)");
+        }
+        long seq = 0;
+        try {
+            for (AuditEventEntity e : entities) {
+                seq = segmentLog.append(mapper.writeValueAsBytes(e));
+            }
+        } catch (IOException | RuntimeException ex) {
+            throw new SpoolUnavailableException("Failed to append audit event to spool: " + ex.getMessage(), ex);
+        }
+        syncLock.lock();
+        try {
+            pending.signal();
+            long remaining = syncTimeoutNanos;
+            while (segmentLog.forcedSeq() < seq) {
+                RuntimeException failure = fsyncFailure;
+                if (failure != null) {
+                    throw new SpoolUnavailableException("Spool fsync failed: " + failure.getMessage(), failure);
+                }
+                if (remaining <= 0) {
+                    throw new SpoolUnavailableException("Timed out waiting for spool fsync");
+                }
+                remaining = synced.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SpoolUnavailableException("Interrupted waiting for spool fsync", ie);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        long backoffMs = 100;
+        while (running || segmentLog.appendedSeq() > segmentLog.forcedSeq()) {
+            syncLock.lock();
+            try {
+                while (running && segmentLog.appendedSeq() <= segmentLog.forcedSeq()) {
+                    pending.await(100, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } finally {
+                syncLock.unlock();
+            }
+            // let concurrent producers pile into the same fsync
+            if (groupCommitNanos > 0) LockSupport.parkNanos(groupCommitNanos);
+
+            long before = segmentLog.forcedSeq();
+            long start = System.nanoTime();
+            long after;
+            try {
+                after = segmentLog.force();
+            } catch (RuntimeException ex) {
+                fsyncFailedCounter.increment();
+                log.error("Spool fsync failed, retrying in {}ms: {}", backoffMs, ex.getMessage(), ex);
+                // fail the waiting producers instead of leaving them parked
+                fsyncFailure = ex;
+                syncLock.lock();
+                try {
+                    synced.signalAll();
+                } finally {
+                    syncLock.unlock();
+                }
+                if (!running) break;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, 5_000);
+                continue;
+            }
+            fsyncFailure = null;
+            backoffMs = 100;
+            if (after > before) {
+                fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                groupSizeSummary.record(after - before);
+            }
+            syncLock.lock();
+            try {
+                synced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    private void replayLoop() {
+        long backoffMs = replayIdleMs;
+        int failures = 0;
+        while (running || checkpoint.compareTo(segmentLog.forcedPosition()) < 0) {
+            try {
+                SegmentLog.ReadResult batch = segmentLog.read(checkpoint, replayBatchSize);
+                if (batch.records().isEmpty()) {
+                    if (!batch.next().equals(checkpoint)) {
+                        advance(batch.next());
+                    }
+                    if (!running) break;
+                    Thread.sleep(replayIdleMs);
+                    continue;
+                }
+                List<AuditEventEntity> entities = new ArrayList<>(batch.records().size());
+                for (byte[] record : batch.records()) {
+                    try {
+                        entities.add(mapper.readValue(record, AuditEventEntity.class));
+                    } catch (IOException bad) {
+                        corruptCounter.increment();
+                        quarantine.add(record, "undecodable: " + bad.getMessage());
+                    }
+                }
+                if (!entities.isEmpty()) {
+                    if (failures < replayMaxAttempts) {
+                        store(entities);
+                    } else {
+                        storeEach(entities);
+                    }
+                }
+                advance(batch.next());
+                backoffMs = replayIdleMs;
+                failures = 0;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                failures++;
+                log.warn("Spool replay failed, retrying in {}ms: attempt={}, error={}", backoffMs, failures, ex.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+                if (!running) break;
+            }
+        }
+    }
+
+    private void store(List<AuditEventEntity> entities) {
+        List<InsertResult> results = repo.insertBatch(entities);
+        if (rollups != null) rollups.recordInserted(entities, results);
+        readCache.recordInserted(entities, results);
+        tail.publishInserted(entities, results);
+        int inserted = 0;
+        int deduped = 0;
+        for (int i = 0; i < results.size(); i++) {
+            InsertResult r = results.get(i);
+            if (r.inserted()) inserted++;
+            else if (r.duplicate()) deduped++;
+            idempotencyCache.put(entities.get(i).idempotencyKey, r.id());
+            idempotencyFilter.record(entities.get(i).idempotencyKey);
+        }
+        ingestedCounter.increment(inserted);
+        dedupCounter.increment(deduped);
+        replayedCounter.increment(results.size());
+    }
+
+    /**
+     * Stores a batch that keeps failing one event at a time, quarantining the events the database
+     * rejects as invalid. Any other failure, such as the database being down, still fails the batch.
+     */
+    private void storeEach(List<AuditEventEntity> entities) throws IOException {
+        log.warn("Replaying spool batch record by record after {} failed attempts: size={}", replayMaxAttempts, entities.size());
+        for (AuditEventEntity e : entities) {
+            try {
+                store(List.of(e));
+            } catch (DataIntegrityViolationException rejected) {
+                quarantine.add(mapper.writeValueAsBytes(e), "rejected: " + rejected.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void advance(SpoolPosition next) throws IOException {
+        segmentLog.checkpoint(next);
+        checkpoint = next;
+    }
+
+    private double backlogBytes() {
+        SpoolPosition end = segmentLog.forcedPosition();
+        SpoolPosition cp = checkpoint;
+        return (double) (end.segment() - cp.segment()) * segmentLog.segmentBytes() + end.offset() - cp.offset();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        running = false;
+        flusher.join(10_000);
+        replayer.join(30_000);
+        segmentLog.close();
+        log.info("Durable ingest spool stopped: checkpoint={}, durable={}", checkpoint, segmentLog.forcedPosition());
+    }
+}
@@ -0,0 +1,268 @@
+package dev.controlplane.auditsink.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of fixed-size, memory-mapped segment files. Each record is framed as
+ * {@code [int length][int crc32][bytes]}; a zero length marks the end of the written region.
+ * Appends only write into the mapped buffer, durability comes from {@link #force()} so callers
+ * can group many appends into one fsync.
+ */
+final class SegmentLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentLog.class);
+    private static final int HEADER_BYTES = 8;
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long segmentId;
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private long appendedSeq;
+    private volatile long forcedSeq;
+    private volatile SpoolPosition forcedPosition;
+
+    private long readSegmentId = -1;
+    private FileChannel readChannel;
+
+    SegmentLog(Path dir, int segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        List<Long> segments = segmentIds();
+        if (segments.isEmpty()) {
+            open(readCheckpoint().segment());
+        } else {
+            open(segments.get(segments.size() - 1));
+            recover();
+        }
+        this.forcedPosition = new SpoolPosition(segmentId, buf.position());
+    }
+
+    /** Writes a record into the mapped segment and returns its sequence number (not yet durable). */
+    long append(byte[] data) throws IOException {
+        int need = HEADER_BYTES + data.length;
+        if (need + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + data.length + " bytes exceeds segment size " + segmentBytes);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        lock.lock();
+        try {
+            if (buf.position() + need + 4 > segmentBytes) {
+                rotate();
+            }
+            buf.putInt(data.length);
+            buf.putInt((int) crc.getValue());
+            buf.put(data);
+            buf.putInt(buf.position(), 0);
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Flushes everything appended so far to disk and returns the highest durable sequence number. */
+    long force() {
+        MappedByteBuffer target;
+        long upTo;
+        SpoolPosition end;
+        lock.lock();
+        try {
+            target = buf;
+            upTo = appendedSeq;
+            end = new SpoolPosition(segmentId, buf.position());
+        } finally {
+            lock.unlock();
+        }
+        if (upTo > forcedSeq) {
+            // segments rotated away since the last force were forced by rotate()
+            target.force();
+            forcedPosition = end;
+            forcedSeq = upTo;
+        }
+        return forcedSeq;
+    }
+
+    long appendedSeq() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long forcedSeq() {
+        return forcedSeq;
+    }
+
+    SpoolPosition forcedPosition() {
+        return forcedPosition;
+    }
+
+    long segmentBytes() {
+        return segmentBytes;
+    }
+
+    /**
+     * Reads up to {@code max} durable records starting at {@code from}. Only a single replayer may call this.
+     */
+    ReadResult read(SpoolPosition from, int max) throws IOException {
+        SpoolPosition limit = forcedPosition;
+        List<byte[]> records = new ArrayList<>();
+        long seg = from.segment();
+        int offset = from.offset();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (records.size() < max && new SpoolPosition(seg, offset).compareTo(limit) < 0) {
+            FileChannel ch = readChannel(seg);
+            boolean endOfSegment = offset + HEADER_BYTES > segmentBytes;
+            int len = 0;
+            if (!endOfSegment) {
+                header.clear();
+                ch.read(header, offset);
+                header.flip();
+                len = header.getInt();
+                endOfSegment = len <= 0 || offset + HEADER_BYTES + len > segmentBytes;
+            }
+            if (endOfSegment) {
+                if (seg >= limit.segment()) break;
+                seg++;
+                offset = 0;
+                continue;
+            }
+            int expectedCrc = header.getInt();
+            ByteBuffer body = ByteBuffer.allocate(len);
+            ch.read(body, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                log.error("Corrupt spool record at segment={}, offset={}; skipping rest of segment", seg, offset);
+                if (seg >= limit.segment()) break;
+                seg++;
+                offset = 0;
+                continue;
+            }
+            records.add(body.array());
+            offset += HEADER_BYTES + len;
+        }
+        return new ReadResult(records, new SpoolPosition(seg, offset));
+    }
+
+    SpoolPosition readCheckpoint() throws IOException {
+        Path p = dir.resolve(CHECKPOINT);
+        if (!Files.exists(p)) return SpoolPosition.START;
+        String[] parts = Files.readString(p, StandardCharsets.US_ASCII).trim().split(" ");
+        return new SpoolPosition(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /** Atomically records the replay position and deletes segments that lie entirely before it. */
+    void checkpoint(SpoolPosition pos) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(ByteBuffer.wrap((pos.segment() + " " + pos.offset() + "\n").getBytes(StandardCharsets.US_ASCII)));
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long id : segmentIds()) {
+            if (id >= pos.segment()) break;
+            if (id == readSegmentId) {
+                readChannel.close();
+                readChannel = null;
+                readSegmentId = -1;
+            }
+            Files.deleteIfExists(segmentPath(id));
+            log.debug("Deleted replayed spool segment {}", id);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            buf.force();
+            channel.close();
+            if (readChannel != null) readChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        buf.force();
+        channel.close();
+        open(segmentId + 1);
+        log.info("Rotated spool to segment {}", segmentId);
+    }
+
+    private void open(long id) throws IOException {
+        segmentId = id;
+        channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    /** Positions the active segment after its last intact record, discarding a torn tail. */
+    private void recover() {
+        int pos = 0;
+        CRC32 crc = new CRC32();
+        while (pos + HEADER_BYTES <= segmentBytes) {
+            int len = buf.getInt(pos);
+            if (len <= 0 || pos + HEADER_BYTES + len > segmentBytes) break;
+            int expected = buf.getInt(pos + 4);
+            crc.reset();
+            crc.update(buf.slice(pos + HEADER_BYTES, len));
+            if ((int) crc.getValue() != expected) break;
+            pos += HEADER_BYTES + len;
+        }
+        buf.position(pos);
+        if (pos + 4 <= segmentBytes) buf.putInt(pos, 0);
+        log.info("Recovered spool segment {} at offset {}", segmentId, pos);
+    }
+
+    private FileChannel readChannel(long id) throws IOException {
+        if (id != readSegmentId) {
+            if (readChannel != null) readChannel.close();
+            readChannel = FileChannel.open(segmentPath(id), StandardOpenOption.READ);
+            readSegmentId = id;
+        }
+        return readChannel;
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("segment-") && n.endsWith(".log"))
+                    .map(n -> Long.parseLong(n.substring("segment-".length(), n.length() - ".log".length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("segment-%020d.log", id));
+    }
+
+    record ReadResult(List<byte[]> records, SpoolPosition next) {}
+}
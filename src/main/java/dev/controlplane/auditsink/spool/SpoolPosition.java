@@ -0,0 +1,13 @@
+package dev.controlplane.auditsink.spool;
+
+/** A byte position in the segment log: segment id plus offset within that segment file. */
+public record SpoolPosition(long segment, int offset) implements Comparable<SpoolPosition> {
+
+    public static final SpoolPosition START = new SpoolPosition(0, 0);
+
+    @Override
+    public int compareTo(SpoolPosition o) {
+        int c = Long.compare(segment, o.segment);
+        return c != 0 ? c : Integer.compare(offset, o.offset);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.controlplane.auditsink.spool;
+
+/**
+ * Thrown when the durable spool cannot make an event durable: the spool is full, fsync is failing,
+ * or it did not complete within the sync timeout. The event may still be on disk and replayed
+ * later, so clients should retry; the idempotency key makes the retry safe.
+ */
+public class SpoolUnavailableException extends RuntimeException {
+    public SpoolUnavailableException(String message) {
+        super(message);
+    }
+
+    public SpoolUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
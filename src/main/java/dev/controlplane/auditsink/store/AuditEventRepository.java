@@ -1,25 +1,58 @@
 package dev.controlplane.auditsink.store;
 
+import dev.controlplane.auditsink.store.SearchStatements.Shape;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.ResultSet;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Repository
 public class AuditEventRepository {
 
     private final NamedParameterJdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate streamingJdbc;
     private final RowMapper<AuditEventEntity> auditEventRowMapper;
+    private final SearchStatements statements = new SearchStatements();
+    private volatile DatabaseDialect dialect;
 
-    public AuditEventRepository(NamedParameterJdbcTemplate jdbc) {
+    // the first "Plan Rows" in the JSON plan belongs to the top node
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    public AuditEventRepository(NamedParameterJdbcTemplate jdbc, @Value("${audit.export.fetchSize:1000}") int fetchSize) {
         this.jdbc = jdbc;
+        JdbcTemplate streaming = new JdbcTemplate(jdbc.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(fetchSize);
+        this.streamingJdbc = new NamedParameterJdbcTemplate(streaming);
         this.auditEventRowMapper = (rs, rowNum) -> {
             AuditEventEntity entity = new AuditEventEntity();
             entity.id = UUID.fromString(rs.getString("id"));
@@ -55,23 +88,173 @@ public class AuditEventRepository {
         };
     }
 
-    public UUID insert(AuditEventEntity e) {
-        String sql = """
-            INSERT INTO audit_event(
+    private static final String INSERT_COLUMNS = """
               id, occurred_at_utc, action, outcome, subject_type, subject_id,
               actor_id, actor_type, roles, tenant_id, channel, ip, user_agent,
               correlation_id, trace_id, app_id, track_id, release_id, jira_key, snow_sys_id,
               policy_decision_id, rule_path, payload_hash, args_redacted, result_redacted,
               error_type, error_message_hash, schema_version, idempotency_key
-            ) VALUES (
+            """;
+
+    private static final String INSERT_VALUES = """
               :id, :occurred_at_utc, :action, :outcome, :subject_type, :subject_id,
               :actor_id, :actor_type, :roles, :tenant_id, :channel, :ip, :user_agent,
               :correlation_id, :trace_id, :app_id, :track_id, :release_id, :jira_key, :snow_sys_id,
               :policy_decision_id, :rule_path, :payload_hash, :args_redacted, :result_redacted,
               :error_type, :error_message_hash, :schema_version, :idempotency_key
-            )
-        """;
+            """;
+
+    /**
+     * Inserts the entity unless an event with the same idempotency key already exists, without
+     * relying on a unique-constraint exception.
+     *
+     * @return the entity's own id when it was inserted, or the id of the existing event
+     */
+    public UUID insertIfAbsent(AuditEventEntity e) {
+        MapSqlParameterSource ps = insertParams(e);
+        if (dialect() == DatabaseDialect.POSTGRES) {
+            // one round trip: either the inserted id or, on conflict, the id already stored. The conflict
+            // target is left open because on the partitioned table the unique key is (idempotency_key, occurred_at_utc)
+            String sql = "WITH ins AS (INSERT INTO audit_event(" + INSERT_COLUMNS + ") VALUES (" + INSERT_VALUES + ")"
+                    + " ON CONFLICT DO NOTHING RETURNING id)"
+                    + " SELECT id FROM ins"
+                    + " UNION ALL"
+                    + " SELECT id FROM audit_event WHERE idempotency_key = :idempotency_key AND NOT EXISTS (SELECT 1 FROM ins)";
+            List<UUID> ids = jdbc.query(sql, ps, (rs, rowNum) -> UUID.fromString(rs.getString("id")));
+            if (!ids.isEmpty()) return ids.get(0);
+        } else {
+            String sql = "INSERT INTO audit_event(" + INSERT_COLUMNS + ") SELECT " + INSERT_VALUES
+                    + " WHERE NOT EXISTS (SELECT 1 FROM audit_event WHERE idempotency_key = :idempotency_key)";
+            try {
+                if (jdbc.update(sql, ps) == 1) return e.id;
+            } catch (DuplicateKeyException raced) {
+                // a concurrent insert of the same key won between our check and insert
+            }
+        }
+        // the conflicting row was committed after our statement's snapshot was taken
+        return findByIdempotencyKey(e.idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key conflict but no existing event found"));
+    }
+
+    /**
+     * Insert fast path for entities whose idempotency key is known to be new: no existence check is
+     * made up front, and the rare conflict falls back to a lookup.
+     *
+     * @return the entity's own id when it was inserted, or the id of the existing event
+     */
+    public UUID insertNew(AuditEventEntity e) {
+        MapSqlParameterSource ps = insertParams(e);
+        try {
+            if (dialect() == DatabaseDialect.POSTGRES) {
+                String sql = "INSERT INTO audit_event(" + INSERT_COLUMNS + ") VALUES (" + INSERT_VALUES + ")"
+                        + " ON CONFLICT DO NOTHING";
+                if (jdbc.update(sql, ps) == 1) return e.id;
+            } else {
+                jdbc.update("INSERT INTO audit_event(" + INSERT_COLUMNS + ") VALUES (" + INSERT_VALUES + ")", ps);
+                return e.id;
+            }
+        } catch (DuplicateKeyException dup) {
+            // fall through to the lookup; any other integrity violation propagates
+        }
+        return findByIdempotencyKey(e.idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key conflict but no existing event found"));
+    }
+
+    /**
+     * Inserts all entities in a single JDBC batch and transaction. Rows whose idempotency key already
+     * exists (in the table or earlier in the same batch) are skipped rather than failing the batch.
+     * On Postgres the ids the statement returned decide which rows were stored; elsewhere the
+     * per-statement update counts do, and a driver that reports neither is taken at its word
+     * whenever the key resolves to the entity's own id. Without {@code ON CONFLICT} a concurrent
+     * batch can commit one of the keys between the existence check and the insert; the batch is then
+     * rolled back to a savepoint and retried one row at a time instead of failing as a whole.
+     *
+     * @return for each entity, in input order, the stored id and whether this call inserted it, found
+     *         another event under its key, or found the entity itself from an earlier attempt
+     */
+    @Transactional
+    public List<InsertResult> insertBatch(List<AuditEventEntity> entities) {
+        if (entities.isEmpty()) return List.of();
+        boolean postgres = dialect() == DatabaseDialect.POSTGRES;
+        String sql = postgres
+                ? "INSERT INTO audit_event(" + INSERT_COLUMNS + ") VALUES (" + INSERT_VALUES + ")"
+                  + " ON CONFLICT DO NOTHING"
+                : "INSERT INTO audit_event(" + INSERT_COLUMNS + ") SELECT " + INSERT_VALUES
+                  + " WHERE NOT EXISTS (SELECT 1 FROM audit_event WHERE idempotency_key = :idempotency_key)";
+
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[entities.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            batch[i] = insertParams(entities.get(i));
+        }
+        Boolean[] inserted = new Boolean[entities.size()];
+        if (postgres) {
+            // RETURNING id only yields the rows that were actually written
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbc.batchUpdate(sql, batch, keys, new String[] {"id"});
+            Set<UUID> returned = new HashSet<>();
+            for (Map<String, Object> row : keys.getKeyList()) {
+                returned.add(UUID.fromString(String.valueOf(row.get("id"))));
+            }
+            for (int i = 0; i < entities.size(); i++) inserted[i] = returned.contains(entities.get(i).id);
+        } else {
+            // called outside a transaction (benchmarks) there is nothing to roll back to
+            TransactionStatus tx = TransactionSynchronizationManager.isActualTransactionActive()
+                    ? TransactionAspectSupport.currentTransactionStatus() : null;
+            Object savepoint = tx != null ? tx.createSavepoint() : null;
+            int[] counts;
+            try {
+                counts = jdbc.batchUpdate(sql, batch);
+            } catch (DataIntegrityViolationException raced) {
+                if (tx == null) throw raced;
+                tx.rollbackToSavepoint(savepoint);
+                List<InsertResult> results = new ArrayList<>(entities.size());
+                for (int i = 0; i < entities.size(); i++) results.add(insertOne(entities.get(i), sql, batch[i]));
+                return results;
+            }
+            if (tx != null) tx.releaseSavepoint(savepoint);
+            for (int i = 0; i < entities.size(); i++) {
+                // SUCCESS_NO_INFO leaves the outcome to the lookup below
+                if (counts[i] >= 0) inserted[i] = counts[i] > 0;
+            }
+        }
+
+        List<String> unresolved = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            if (!Boolean.TRUE.equals(inserted[i])) unresolved.add(entities.get(i).idempotencyKey);
+        }
+        Map<String, UUID> existing = findIdsByIdempotencyKeys(unresolved);
+        List<InsertResult> results = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            AuditEventEntity e = entities.get(i);
+            if (Boolean.TRUE.equals(inserted[i])) {
+                results.add(new InsertResult(e.id, InsertResult.Status.INSERTED));
+                continue;
+            }
+            UUID id = existing.get(e.idempotencyKey);
+            if (id == null) {
+                throw new IllegalStateException("Idempotency key conflict but no existing event found");
+            }
+            InsertResult.Status status = !id.equals(e.id) ? InsertResult.Status.DUPLICATE
+                    : inserted[i] == null ? InsertResult.Status.INSERTED
+                    : InsertResult.Status.ALREADY_STORED;
+            results.add(new InsertResult(id, status));
+        }
+        return results;
+    }
+
+    /** One row of {@link #insertBatch}'s fallback; any violation other than a duplicate key still fails. */
+    private InsertResult insertOne(AuditEventEntity e, String sql, MapSqlParameterSource ps) {
+        try {
+            if (jdbc.update(sql, ps) == 1) return new InsertResult(e.id, InsertResult.Status.INSERTED);
+        } catch (DuplicateKeyException raced) {
+            // the concurrent insert won this key too
+        }
+        UUID id = findByIdempotencyKey(e.idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key conflict but no existing event found"));
+        return new InsertResult(id, id.equals(e.id) ? InsertResult.Status.ALREADY_STORED : InsertResult.Status.DUPLICATE);
+    }
 
+    private MapSqlParameterSource insertParams(AuditEventEntity e) {
         MapSqlParameterSource ps = new MapSqlParameterSource();
         ps.addValue("id", e.id);
         ps.addValue("occurred_at_utc", e.occurredAtUtc);
@@ -102,12 +285,16 @@ public class AuditEventRepository {
         ps.addValue("error_message_hash", e.errorMessageHash);
         ps.addValue("schema_version", e.schemaVersion);
         ps.addValue("idempotency_key", e.idempotencyKey);
-        try {
-            jdbc.update(sql, ps);
-            return e.id;
-        } catch (DataIntegrityViolationException dup) {
-            throw dup;
+        return ps;
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect d = dialect;
+        if (d == null) {
+            d = DatabaseDialect.detect(jdbc.getJdbcTemplate().getDataSource());
+            dialect = d;
         }
+        return d;
     }
 
     public Optional<UUID> findByIdempotencyKey(String key) {
@@ -116,19 +303,23 @@ public class AuditEventRepository {
                 rs -> rs.next() ? Optional.of(UUID.fromString(rs.getString("id"))) : Optional.empty());
     }
 
-    public List<AuditEventEntity> findAll(int page, int size, String sortBy, String sortOrder) {
-        String order = "DESC".equalsIgnoreCase(sortOrder) ? "DESC" : "ASC";
-        String sql = String.format("""
-            SELECT * FROM audit_event 
-            ORDER BY %s %s 
-            LIMIT :limit OFFSET :offset
-            """, sortBy, order);
-        
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("limit", size);
-        params.addValue("offset", page * size);
-        
-        return jdbc.query(sql, params, auditEventRowMapper);
+    public void forEachIdempotencyKeySince(OffsetDateTime since, Consumer<String> consumer) {
+        String q = "SELECT idempotency_key FROM audit_event WHERE occurred_at_utc >= :since AND idempotency_key IS NOT NULL";
+        jdbc.query(q, new MapSqlParameterSource("since", since),
+                rs -> { consumer.accept(rs.getString(1)); });
+    }
+
+    public Map<String, UUID> findIdsByIdempotencyKeys(Collection<String> keys) {
+        if (keys.isEmpty()) return Map.of();
+        String q = "SELECT id, idempotency_key FROM audit_event WHERE idempotency_key IN (:keys)";
+        Map<String, UUID> out = new HashMap<>();
+        jdbc.query(q, new MapSqlParameterSource("keys", keys),
+                rs -> { out.put(rs.getString("idempotency_key"), UUID.fromString(rs.getString("id"))); });
+        return out;
+    }
+
+    public List<AuditEventEntity> findAll(long offset, int limit, String sortBy, String sortOrder) {
+        return search(Map.of(), offset, limit, sortBy, sortOrder);
     }
 
     public Optional<AuditEventEntity> findById(UUID id) {
@@ -139,58 +330,56 @@ public class AuditEventRepository {
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
 
-    public List<AuditEventEntity> search(Map<String, Object> filters, int page, int size, String sortBy, String sortOrder) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM audit_event WHERE 1=1");
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        
-        if (filters.containsKey("tenantId")) {
-            sql.append(" AND tenant_id = :tenantId");
-            params.addValue("tenantId", filters.get("tenantId"));
-        }
-        if (filters.containsKey("actorId")) {
-            sql.append(" AND actor_id = :actorId");
-            params.addValue("actorId", filters.get("actorId"));
-        }
-        if (filters.containsKey("subjectId")) {
-            sql.append(" AND subject_id = :subjectId");
-            params.addValue("subjectId", filters.get("subjectId"));
-        }
-        if (filters.containsKey("action")) {
-            sql.append(" AND action = :action");
-            params.addValue("action", filters.get("action"));
-        }
-        if (filters.containsKey("outcome")) {
-            sql.append(" AND outcome = :outcome");
-            params.addValue("outcome", filters.get("outcome"));
-        }
-        if (filters.containsKey("correlationId")) {
-            sql.append(" AND correlation_id = :correlationId");
-            params.addValue("correlationId", filters.get("correlationId"));
-        }
-        if (filters.containsKey("traceId")) {
-            sql.append(" AND trace_id = :traceId");
-            params.addValue("traceId", filters.get("traceId"));
-        }
-        if (filters.containsKey("appId")) {
-            sql.append(" AND app_id = :appId");
-            params.addValue("appId", filters.get("appId"));
-        }
-        if (filters.containsKey("fromDate")) {
-            sql.append(" AND occurred_at_utc >= :fromDate");
-            params.addValue("fromDate", filters.get("fromDate"));
+    public List<AuditEventEntity> search(Map<String, Object> filters, long offset, int limit, String sortBy, String sortOrder) {
+        SearchStatements.Statement st = statements.get(filters, Shape.PAGE, sortBy, "DESC".equalsIgnoreCase(sortOrder));
+        return jdbc.getJdbcTemplate().query(st.sql(), auditEventRowMapper, st.args(filters, limit, offset));
+    }
+
+    /**
+     * Keyset page ordered by (occurred_at_utc, id): rows strictly after {@code after} in the
+     * requested direction, or from the start when it is null. Seeks instead of skipping rows, so
+     * deep pages cost the same as the first one.
+     */
+    public List<AuditEventEntity> searchAfter(Map<String, Object> filters, PageCursor after, int limit, boolean descending) {
+        if (after == null) {
+            SearchStatements.Statement st = statements.get(filters, Shape.KEYSET, "occurred_at_utc", descending);
+            return jdbc.getJdbcTemplate().query(st.sql(), auditEventRowMapper, st.args(filters, limit));
         }
-        if (filters.containsKey("toDate")) {
-            sql.append(" AND occurred_at_utc <= :toDate");
-            params.addValue("toDate", filters.get("toDate"));
+        SearchStatements.Statement st = statements.get(filters, Shape.KEYSET_AFTER, "occurred_at_utc", descending);
+        return jdbc.getJdbcTemplate().query(st.sql(), auditEventRowMapper,
+                st.args(filters, after.occurredAtUtc(), after.occurredAtUtc(), after.id(), limit));
+    }
+
+    /**
+     * Hands every matching row, ordered by (occurred_at_utc, id), to {@code sink} as it is read. The
+     * query runs in a read-only transaction with a fetch size so Postgres uses a server-side cursor
+     * over a forward-only result set, keeping memory flat however many rows match.
+     */
+    @Transactional(readOnly = true)
+    public void streamSearch(Map<String, Object> filters, boolean descending, Consumer<AuditEventEntity> sink) {
+        SearchStatements.Statement st = statements.get(filters, Shape.STREAM, "occurred_at_utc", descending);
+        int[] rowNum = {0};
+        streamingJdbc.getJdbcTemplate().query(st.sql(), (RowCallbackHandler) rs ->
+                sink.accept(auditEventRowMapper.mapRow(rs, rowNum[0]++)), st.args(filters));
+    }
+
+    /**
+     * Deletes the given rows after they were archived. The time bounds let Postgres prune to the
+     * partitions holding them.
+     */
+    @Transactional
+    public int deleteArchived(List<AuditEventEntity> rows) {
+        int deleted = 0;
+        for (int from = 0; from < rows.size(); from += 1000) {
+            List<AuditEventEntity> chunk = rows.subList(from, Math.min(rows.size(), from + 1000));
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("ids", chunk.stream().map(e -> e.id).toList());
+            params.addValue("minTime", chunk.stream().map(e -> e.occurredAtUtc).min(OffsetDateTime::compareTo).orElseThrow());
+            params.addValue("maxTime", chunk.stream().map(e -> e.occurredAtUtc).max(OffsetDateTime::compareTo).orElseThrow());
+            deleted += jdbc.update("DELETE FROM audit_event WHERE id IN (:ids)"
+                    + " AND occurred_at_utc >= :minTime AND occurred_at_utc <= :maxTime", params);
         }
-        
-        String order = "DESC".equalsIgnoreCase(sortOrder) ? "DESC" : "ASC";
-        sql.append(String.format(" ORDER BY %s %s LIMIT :limit OFFSET :offset", sortBy, order));
-        
-        params.addValue("limit", size);
-        params.addValue("offset", page * size);
-        
-        return jdbc.query(sql.toString(), params, auditEventRowMapper);
+        return deleted;
     }
 
     public long count() {
@@ -198,50 +387,47 @@ public class AuditEventRepository {
     }
 
     public long countWithFilters(Map<String, Object> filters) {
-        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM audit_event WHERE 1=1");
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        
-        if (filters.containsKey("tenantId")) {
-            sql.append(" AND tenant_id = :tenantId");
-            params.addValue("tenantId", filters.get("tenantId"));
-        }
-        if (filters.containsKey("actorId")) {
-            sql.append(" AND actor_id = :actorId");
-            params.addValue("actorId", filters.get("actorId"));
-        }
-        if (filters.containsKey("subjectId")) {
-            sql.append(" AND subject_id = :subjectId");
-            params.addValue("subjectId", filters.get("subjectId"));
-        }
-        if (filters.containsKey("action")) {
-            sql.append(" AND action = :action");
-            params.addValue("action", filters.get("action"));
-        }
-        if (filters.containsKey("outcome")) {
-            sql.append(" AND outcome = :outcome");
-            params.addValue("outcome", filters.get("outcome"));
-        }
-        if (filters.containsKey("correlationId")) {
-            sql.append(" AND correlation_id = :correlationId");
-            params.addValue("correlationId", filters.get("correlationId"));
-        }
-        if (filters.containsKey("traceId")) {
-            sql.append(" AND trace_id = :traceId");
-            params.addValue("traceId", filters.get("traceId"));
-        }
-        if (filters.containsKey("appId")) {
-            sql.append(" AND app_id = :appId");
-            params.addValue("appId", filters.get("appId"));
-        }
-        if (filters.containsKey("fromDate")) {
-            sql.append(" AND occurred_at_utc >= :fromDate");
-            params.addValue("fromDate", filters.get("fromDate"));
-        }
-        if (filters.containsKey("toDate")) {
-            sql.append(" AND occurred_at_utc <= :toDate");
-            params.addValue("toDate", filters.get("toDate"));
+        SearchStatements.Statement st = statements.get(filters, Shape.COUNT, "", false);
+        return jdbc.getJdbcTemplate().queryForObject(st.sql(), Long.class, st.args(filters));
+    }
+
+    /**
+     * Planner row estimate for the filtered query, read from {@code EXPLAIN (FORMAT JSON)}, which
+     * scales {@code pg_class.reltuples} to the table's current size. Empty on databases without
+     * usable statistics.
+     */
+    public OptionalLong estimateCount(Map<String, Object> filters) {
+        if (dialect() != DatabaseDialect.POSTGRES) return OptionalLong.empty();
+        SearchStatements.Statement st = statements.get(filters, Shape.EXPLAIN_COUNT, "", false);
+        String plan = jdbc.getJdbcTemplate().queryForObject(st.sql(), String.class, st.args(filters));
+        Matcher m = PLAN_ROWS.matcher(plan == null ? "" : plan);
+        return m.find() ? OptionalLong.of(Long.parseLong(m.group(1))) : OptionalLong.empty();
+    }
+
+    /**
+     * Key columns of each index on {@code audit_event}, in index order, as reported by the JDBC driver.
+     * Empty when the driver cannot describe them.
+     */
+    public Map<String, List<String>> indexColumns() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbc.getJdbcTemplate().getDataSource(), md -> {
+                Map<String, List<String>> out = new TreeMap<>();
+                // unquoted identifiers are stored upper-case by H2 and lower-case by Postgres
+                for (String table : List.of("audit_event", "AUDIT_EVENT")) {
+                    try (ResultSet rs = md.getIndexInfo(null, null, table, false, true)) {
+                        while (rs.next()) {
+                            String index = rs.getString("INDEX_NAME");
+                            String column = rs.getString("COLUMN_NAME");
+                            if (index == null || column == null) continue;
+                            out.computeIfAbsent(index.toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                                    .add(column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                return out;
+            });
+        } catch (MetaDataAccessException e) {
+            return Map.of();
         }
-        
-        return jdbc.queryForObject(sql.toString(), params, Long.class);
     }
 }
@@ -0,0 +1,26 @@
+package dev.controlplane.auditsink.store;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+public enum DatabaseDialect {
+    POSTGRES,
+    H2,
+    OTHER;
+
+    public static DatabaseDialect detect(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            if (product == null) return OTHER;
+            String p = product.toLowerCase();
+            if (p.contains("postgres")) return POSTGRES;
+            if (p.contains("h2")) return H2;
+            return OTHER;
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Unable to determine database dialect", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.controlplane.auditsink.store;
+
+import java.util.UUID;
+
+/**
+ * Outcome of inserting one event: the id now stored for its idempotency key and whether this call
+ * stored it. {@code ALREADY_STORED} is the event's own row written by an earlier attempt, as seen
+ * when a batch is retried or a spool is replayed after a crash.
+ */
+public record InsertResult(UUID id, Status status) {
+
+    public enum Status { INSERTED, DUPLICATE, ALREADY_STORED }
+
+    public boolean inserted() {
+        return status == Status.INSERTED;
+    }
+
+    /** Another event already holds the idempotency key. */
+    public boolean duplicate() {
+        return status == Status.DUPLICATE;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.controlplane.auditsink.store;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position (occurred_at_utc, id) of the last row of a page, exchanged with clients as an
+ * opaque base64url token.
+ */
+public record PageCursor(OffsetDateTime occurredAtUtc, UUID id) {
+
+    private static final int ENCODED_BYTES = 8 + 4 + 4 + 16;
+
+    public static PageCursor of(AuditEventEntity e) {
+        return new PageCursor(e.occurredAtUtc, e.id);
+    }
+
+    public String encode() {
+        ByteBuffer buf = ByteBuffer.allocate(ENCODED_BYTES);
+        buf.putLong(occurredAtUtc.toEpochSecond());
+        buf.putInt(occurredAtUtc.getNano());
+        buf.putInt(occurredAtUtc.getOffset().getTotalSeconds());
+        buf.putLong(id.getMostSignificantBits());
+        buf.putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+    public static PageCursor decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        Instant instant = Instant.ofEpochSecond(buf.getLong(), buf.getInt());
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(buf.getInt());
+        return new PageCursor(OffsetDateTime.ofInstant(instant, offset), new UUID(buf.getLong(), buf.getLong()));
+    }
+}
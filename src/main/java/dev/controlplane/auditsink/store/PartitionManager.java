@@ -0,0 +1,169 @@
+package dev.controlplane.auditsink.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the range partitions of {@code audit_event} (created by the Postgres V2 migration) ahead of
+ * time and within retention: partitions for the current and next {@code premake} intervals are
+ * created, and partitions that end before now minus {@code retention} are dropped or detached.
+ * Does nothing when {@code audit_event} is not a partitioned Postgres table.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.partitioning.enabled", havingValue = "true")
+public class PartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionManager.class);
+    private static final String PREFIX = "audit_event_p";
+
+    enum Interval {
+        DAY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        final DateTimeFormatter suffix;
+
+        Interval(DateTimeFormatter suffix) {
+            this.suffix = suffix;
+        }
+
+        LocalDate truncate(LocalDate d) {
+            return this == DAY ? d : d.withDayOfMonth(1);
+        }
+
+        LocalDate next(LocalDate start) {
+            return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+        }
+
+        LocalDate parse(String suffixText) {
+            return this == DAY
+                    ? LocalDate.parse(suffixText, suffix)
+                    : LocalDate.parse(suffixText + "01", DAY.suffix);
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final Interval interval;
+    private final int premake;
+    private final Duration retention;
+    private final boolean detachExpired;
+    private final AtomicInteger partitionCount = new AtomicInteger();
+    private final Counter createdCounter;
+    private final Counter expiredCounter;
+
+    public PartitionManager(
+            JdbcTemplate jdbc,
+            MeterRegistry registry,
+            @Value("${audit.partitioning.interval:month}") String interval,
+            @Value("${audit.partitioning.premake:2}") int premake,
+            @Value("${audit.partitioning.retention:0d}") Duration retention,
+            @Value("${audit.partitioning.retentionAction:drop}") String retentionAction
+    ) {
+        this.jdbc = jdbc;
+        this.interval = Interval.valueOf(interval.trim().toUpperCase(Locale.ROOT));
+        this.premake = premake;
+        this.retention = retention;
+        this.detachExpired = "detach".equalsIgnoreCase(retentionAction.trim());
+
+        this.createdCounter = registry.counter("audit.partitions.created");
+        this.expiredCounter = registry.counter("audit.partitions.expired", "action", detachExpired ? "detach" : "drop");
+        Gauge.builder("audit.partitions.count", partitionCount, AtomicInteger::get)
+                .description("Managed audit_event partitions currently attached")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${audit.partitioning.initialDelay:PT10S}",
+               fixedDelayString = "${audit.partitioning.checkInterval:PT1H}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                log.warn("audit.partitioning.enabled is set but audit_event is not a partitioned Postgres table; skipping");
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            LocalDate start = interval.truncate(now.toLocalDate());
+            for (int i = 0; i <= premake; i++) {
+                createIfMissing(start);
+                start = interval.next(start);
+            }
+            if (!retention.isZero() && !retention.isNegative()) {
+                expireBefore(now.minus(retention));
+            }
+            partitionCount.set(managedPartitions().size());
+        } catch (DataAccessException e) {
+            log.error("Partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (DatabaseDialect.detect(jdbc.getDataSource()) != DatabaseDialect.POSTGRES) return false;
+        List<String> kind = jdbc.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass('audit_event')", String.class);
+        return !kind.isEmpty() && "p".equals(kind.get(0));
+    }
+
+    private void createIfMissing(LocalDate from) {
+        LocalDate to = interval.next(from);
+        String name = PREFIX + interval.suffix.format(from);
+        try {
+            if (Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name))) return;
+            jdbc.execute("CREATE TABLE " + name + " PARTITION OF audit_event FOR VALUES FROM ('"
+                    + from.atStartOfDay() + "') TO ('" + to.atStartOfDay() + "')");
+            createdCounter.increment();
+            log.info("Created partition {} [{}, {})", name, from, to);
+        } catch (DataAccessException e) {
+            // typically rows for this range already sit in audit_event_default and have to be moved by hand
+            log.error("Could not create partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void expireBefore(LocalDateTime cutoff) {
+        for (String name : managedPartitions()) {
+            LocalDate from;
+            try {
+                from = interval.parse(name.substring(PREFIX.length()));
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            if (interval.next(from).atStartOfDay().isAfter(cutoff)) continue;
+            if (detachExpired) {
+                jdbc.execute("ALTER TABLE audit_event DETACH PARTITION " + name);
+                log.info("Detached expired partition {}", name);
+            } else {
+                jdbc.execute("DROP TABLE " + name);
+                log.info("Dropped expired partition {}", name);
+            }
+            expiredCounter.increment();
+        }
+    }
+
+    /** Attached partitions following the naming scheme of the configured interval. */
+    private List<String> managedPartitions() {
+        int suffixLength = interval == Interval.DAY ? 8 : 6;
+        return jdbc.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass('audit_event')
+                ORDER BY c.relname
+                """, String.class).stream()
+                .filter(n -> n.startsWith(PREFIX) && n.length() == PREFIX.length() + suffixLength)
+                .toList();
+    }
+}
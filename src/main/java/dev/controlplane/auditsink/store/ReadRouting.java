@@ -0,0 +1,35 @@
+package dev.controlplane.auditsink.store;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the queries a thread runs inside {@link #onReplica} as safe to serve from a read replica.
+ * Connections obtained outside such a block, and everything on the ingest path, use the primary.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    private ReadRouting() {}
+
+    public static <T> T onReplica(Supplier<T> body) {
+        Boolean previous = REPLICA.get();
+        REPLICA.set(Boolean.TRUE);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null) REPLICA.remove();
+        }
+    }
+
+    public static void onReplica(Runnable body) {
+        onReplica(() -> {
+            body.run();
+            return null;
+        });
+    }
+
+    static boolean replicaAllowed() {
+        return REPLICA.get() != null;
+    }
+}
@@ -0,0 +1,151 @@
+package dev.controlplane.auditsink.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections requested inside {@link ReadRouting#onReplica} to a healthy read replica, round
+ * robin, and everything else to the primary. Each replica has its own pool; a background check marks
+ * it unhealthy while it cannot be reached or lags more than {@code maxLag}. Reads fall back to the
+ * primary when no replica is healthy or a replica connection fails.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // zero when the standby has replayed everything it received, else the age of the last replayed commit
+    private static final String POSTGRES_LAG = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    /** A replica pool and its last check result. */
+    public static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        final String lagQuery;
+        final Counter reads;
+        volatile boolean healthy;
+        volatile double lagSeconds = Double.NaN;
+
+        public Replica(String name, HikariDataSource pool, String lagQuery, MeterRegistry registry) {
+            this.name = name;
+            this.pool = pool;
+            this.lagQuery = lagQuery;
+            this.reads = registry.counter("audit.replica.reads", "target", name);
+            Gauge.builder("audit.replica.lag", this, r -> r.lagSeconds)
+                    .description("Replication lag of the replica at the last check")
+                    .baseUnit("seconds")
+                    .tag("target", name)
+                    .register(registry);
+            Gauge.builder("audit.replica.healthy", this, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica is reachable and within the lag bound")
+                    .tag("target", name)
+                    .register(registry);
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final Counter primaryReads;
+    private final Counter fallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag, Duration checkInterval,
+                                    MeterRegistry registry) {
+        super(primary);
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.primaryReads = registry.counter("audit.replica.reads", "target", "primary");
+        this.fallbacks = registry.counter("audit.replica.fallback");
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "audit-replica-check");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(this::checkAll, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRouting.replicaAllowed()) return super.getConnection();
+        Replica replica = pick();
+        if (replica != null) {
+            try {
+                Connection c = replica.pool.getConnection();
+                replica.reads.increment();
+                return c;
+            } catch (SQLException e) {
+                replica.healthy = false;
+                log.warn("Read replica {} unavailable, using primary: {}", replica.name, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        primaryReads.increment();
+        return super.getConnection();
+    }
+
+    private Replica pick() {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (r.healthy) return r;
+        }
+        return null;
+    }
+
+    private void checkAll() {
+        for (Replica r : replicas) {
+            boolean wasHealthy = r.healthy;
+            try (Connection c = r.pool.getConnection()) {
+                r.lagSeconds = lag(r, c);
+                r.healthy = r.lagSeconds <= maxLagSeconds;
+            } catch (SQLException | RuntimeException e) {
+                r.lagSeconds = Double.NaN;
+                r.healthy = false;
+            }
+            if (wasHealthy != r.healthy) {
+                log.info("Read replica {} is now {} (lag {}s)", r.name, r.healthy ? "in use" : "skipped", r.lagSeconds);
+            }
+        }
+    }
+
+    private static double lag(Replica r, Connection c) throws SQLException {
+        String query = r.lagQuery;
+        if (query == null) {
+            if (!c.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres")) {
+                return c.isValid(5) ? 0 : Double.NaN;
+            }
+            query = POSTGRES_LAG;
+        }
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(query)) {
+            return rs.next() ? rs.getDouble(1) : Double.NaN;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        checker.shutdownNow();
+        for (Replica r : replicas) r.pool.close();
+        if (getTargetDataSource() instanceof AutoCloseable primary) primary.close();
+    }
+}
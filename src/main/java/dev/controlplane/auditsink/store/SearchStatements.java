@@ -0,0 +1,108 @@
+package dev.controlplane.auditsink.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the search statements the repository runs, built once per (filter set, shape, sort
+ * column, direction) and reused. Each statement is plain JDBC SQL with {@code ?} placeholders plus the
+ * filters in placeholder order, so a call only collects its argument values. Identical combinations
+ * always send the identical SQL text, which is what the driver's prepared-statement cache keys on.
+ */
+final class SearchStatements {
+
+    /** Search filters in the order their predicates appear; the ordinal is the bit in the filter mask. */
+    enum Filter {
+        TENANT("tenantId", "tenant_id = ?"),
+        ACTOR("actorId", "actor_id = ?"),
+        SUBJECT("subjectId", "subject_id = ?"),
+        ACTION("action", "action = ?"),
+        OUTCOME("outcome", "outcome = ?"),
+        CORRELATION("correlationId", "correlation_id = ?"),
+        TRACE("traceId", "trace_id = ?"),
+        APP("appId", "app_id = ?"),
+        FROM("fromDate", "occurred_at_utc >= ?"),
+        TO("toDate", "occurred_at_utc <= ?");
+
+        final String key;
+        final String predicate;
+
+        Filter(String key, String predicate) {
+            this.key = key;
+            this.predicate = predicate;
+        }
+    }
+
+    enum Shape {
+        /** offset page: trailing arguments limit, offset */
+        PAGE,
+        /** first keyset page: trailing argument limit */
+        KEYSET,
+        /** keyset page after a cursor: trailing arguments cursor time, cursor time, cursor id, limit */
+        KEYSET_AFTER,
+        /** every matching row in (occurred_at_utc, id) order */
+        STREAM,
+        COUNT,
+        EXPLAIN_COUNT
+    }
+
+    record Statement(String sql, Filter[] filters) {
+
+        /** Filter values in placeholder order followed by {@code trailing}. */
+        Object[] args(Map<String, Object> values, Object... trailing) {
+            Object[] args = new Object[filters.length + trailing.length];
+            for (int i = 0; i < filters.length; i++) args[i] = values.get(filters[i].key);
+            System.arraycopy(trailing, 0, args, filters.length, trailing.length);
+            return args;
+        }
+    }
+
+    private record Key(int mask, Shape shape, String sortBy, boolean descending) {}
+
+    private final Map<Key, Statement> statements = new ConcurrentHashMap<>();
+
+    /** {@code sortBy} must already be a validated column name; it is the only text spliced into the SQL. */
+    Statement get(Map<String, Object> filters, Shape shape, String sortBy, boolean descending) {
+        int mask = 0;
+        for (Filter f : Filter.values()) {
+            if (filters.containsKey(f.key)) mask |= 1 << f.ordinal();
+        }
+        return statements.computeIfAbsent(new Key(mask, shape, sortBy, descending), SearchStatements::build);
+    }
+
+    private static Statement build(Key key) {
+        StringBuilder sql = new StringBuilder(switch (key.shape()) {
+            case COUNT -> "SELECT COUNT(*) FROM audit_event";
+            case EXPLAIN_COUNT -> "EXPLAIN (FORMAT JSON) SELECT 1 FROM audit_event";
+            default -> "SELECT * FROM audit_event";
+        });
+        List<Filter> used = new ArrayList<>();
+        String glue = " WHERE ";
+        for (Filter f : Filter.values()) {
+            if ((key.mask() & (1 << f.ordinal())) == 0) continue;
+            sql.append(glue).append(f.predicate);
+            used.add(f);
+            glue = " AND ";
+        }
+        String order = key.descending() ? "DESC" : "ASC";
+        switch (key.shape()) {
+            case PAGE -> sql.append(" ORDER BY ").append(key.sortBy()).append(' ').append(order)
+                    .append(" LIMIT ? OFFSET ?");
+            case KEYSET, KEYSET_AFTER, STREAM -> {
+                if (key.shape() == Shape.KEYSET_AFTER) {
+                    // expanded form of (occurred_at_utc, id) < (t, id): the plain bound on occurred_at_utc
+                    // lets Postgres prune partitions, which a row-value comparison does not
+                    sql.append(glue).append(key.descending()
+                            ? "occurred_at_utc <= ? AND (occurred_at_utc < ? OR id < ?)"
+                            : "occurred_at_utc >= ? AND (occurred_at_utc > ? OR id > ?)");
+                }
+                sql.append(" ORDER BY occurred_at_utc ").append(order).append(", id ").append(order);
+                if (key.shape() != Shape.STREAM) sql.append(" LIMIT ?");
+            }
+            default -> { }
+        }
+        return new Statement(sql.toString(), used.toArray(new Filter[0]));
+    }
+}
@@ -1,19 +1,96 @@
 package dev.controlplane.auditsink.util;
 
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 
 public class HashingUtil {
+
+    private static final ThreadLocal<Sha256Builder> BUILDER = ThreadLocal.withInitial(Sha256Builder::new);
+
     public static String sha256Base64(String s) {
         if (s == null) return null;
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] d = md.digest(s.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(d);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+        return sha256().append(s).digestBase64();
+    }
+
+    /**
+     * Returns this thread's reusable SHA-256 builder, reset and ready for input. Feeding fields
+     * through it hashes exactly the UTF-8 bytes of their concatenation without building the
+     * concatenated String. The builder must not be held across calls.
+     */
+    public static Sha256Builder sha256() {
+        return BUILDER.get().reset();
+    }
+
+    public static final class Sha256Builder {
+        private final MessageDigest md;
+        private final byte[] buf = new byte[512];
+        private final byte[] digest = new byte[32];
+        private final byte[] encoded = new byte[44];
+        private int pos;
+
+        private Sha256Builder() {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Sha256Builder reset() {
+            md.reset();
+            pos = 0;
+            return this;
+        }
+
+        /** Appends the UTF-8 encoding of {@code s}, or {@code "null"} like string concatenation does. */
+        public Sha256Builder append(String s) {
+            if (s == null) s = "null";
+            int len = s.length();
+            for (int i = 0; i < len; i++) {
+                if (pos > buf.length - 4) flush();
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired surrogate: String.getBytes(UTF_8) substitutes '?'
+                    buf[pos++] = '?';
+                } else {
+                    buf[pos++] = (byte) (0xE0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return this;
+        }
+
+        public String digestBase64() {
+            flush();
+            try {
+                md.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                throw new RuntimeException(e);
+            }
+            Base64.getEncoder().encode(digest, encoded);
+            return new String(encoded, StandardCharsets.ISO_8859_1);
+        }
+
+        private void flush() {
+            if (pos > 0) {
+                md.update(buf, 0, pos);
+                pos = 0;
+            }
         }
     }
 }
@@ -0,0 +1,134 @@
+package dev.controlplane.auditsink.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-windowed Bloom filter for strings. The window is split into {@code generations} buckets of
+ * {@code bucketMillis} each; keys are added to the newest bucket and looked up in all of them, and
+ * the oldest bucket is cleared and reused when time moves past the newest one. A key added within
+ * the window is always reported as possibly present; a key never added is reported present with
+ * roughly the configured false-positive probability.
+ */
+public class SlidingBloomFilter {
+
+    private final int generations;
+    private final long bucketMillis;
+    private final int numHashes;
+    private final long numBits;
+    private final AtomicLongArray[] bits;
+    private final AtomicLong[] bitsSet;
+    private final LongSupplier clock;
+    private final ReentrantLock rotateLock = new ReentrantLock();
+    private volatile int current;
+    private volatile long currentBucketStart;
+
+    public SlidingBloomFilter(long expectedInsertionsPerBucket, double fpp, int generations, long bucketMillis,
+                              LongSupplier clock) {
+        if (generations < 1) throw new IllegalArgumentException("generations must be >= 1");
+        long n = Math.max(1, expectedInsertionsPerBucket);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.numBits = Math.max(64, (m + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.generations = generations;
+        this.bucketMillis = bucketMillis;
+        this.clock = clock;
+        this.bits = new AtomicLongArray[generations];
+        this.bitsSet = new AtomicLong[generations];
+        for (int g = 0; g < generations; g++) {
+            bits[g] = new AtomicLongArray((int) (numBits / 64));
+            bitsSet[g] = new AtomicLong();
+        }
+        this.currentBucketStart = clock.getAsLong();
+    }
+
+    public void put(String key) {
+        rotateIfDue();
+        AtomicLongArray words = bits[current];
+        AtomicLong set = bitsSet[current];
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long prev;
+            do {
+                prev = words.get(word);
+                if ((prev & mask) != 0) break;
+            } while (!words.compareAndSet(word, prev, prev | mask));
+            if ((prev & mask) == 0) set.incrementAndGet();
+        }
+    }
+
+    /** Returns {@code false} only if the key was definitely not added within the window. */
+    public boolean mightContain(String key) {
+        rotateIfDue();
+        long h1 = hash(key, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int g = 0; g < generations; g++) {
+            if (contains(bits[g], h1, h2)) return true;
+        }
+        return false;
+    }
+
+    /** Estimated probability that {@link #mightContain} returns {@code true} for a key never added. */
+    public double expectedFpp() {
+        double pNone = 1.0;
+        for (int g = 0; g < generations; g++) {
+            double fill = (double) bitsSet[g].get() / numBits;
+            pNone *= 1.0 - Math.pow(fill, numHashes);
+        }
+        return 1.0 - pNone;
+    }
+
+    public long sizeInBytes() {
+        return numBits / 8 * generations;
+    }
+
+    private boolean contains(AtomicLongArray words, long h1, long h2) {
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private void rotateIfDue() {
+        long now = clock.getAsLong();
+        if (now - currentBucketStart < bucketMillis) return;
+        rotateLock.lock();
+        try {
+            long elapsedBuckets = (now - currentBucketStart) / bucketMillis;
+            if (elapsedBuckets <= 0) return;
+            // after a long idle period every generation is stale, so clear each at most once
+            long toClear = Math.min(elapsedBuckets, generations);
+            for (long r = 0; r < toClear; r++) {
+                int next = (current + 1) % generations;
+                AtomicLongArray words = bits[next];
+                for (int i = 0; i < words.length(); i++) words.set(i, 0L);
+                bitsSet[next].set(0);
+                current = next;
+            }
+            currentBucketStart += elapsedBuckets * bucketMillis;
+        } finally {
+            rotateLock.unlock();
+        }
+    }
+
+    private static long hash(String s, long seed) {
+        long h = seed;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,26 +1,55 @@
 package dev.controlplane.auditsink.web;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import dev.controlplane.auditsink.config.WireFormatConfig;
 import dev.controlplane.auditsink.model.AuditEventRequest;
 import dev.controlplane.auditsink.model.AuditEventResponse;
 import dev.controlplane.auditsink.model.IngestResponse;
 import dev.controlplane.auditsink.model.PagedResponse;
+import dev.controlplane.auditsink.model.StatsResponse;
+import dev.controlplane.auditsink.proto.AuditEvent;
+import dev.controlplane.auditsink.proto.AuditEventBatch;
+import dev.controlplane.auditsink.rollup.StatsService;
 import dev.controlplane.auditsink.service.AuditIngestService;
 import dev.controlplane.auditsink.service.AuditQueryService;
+import dev.controlplane.auditsink.service.IngestMetrics;
+import dev.controlplane.auditsink.service.IngestRejectedException;
+import dev.controlplane.auditsink.service.InvalidCursorException;
+import dev.controlplane.auditsink.service.InvalidQueryException;
+import dev.controlplane.auditsink.service.LiveTailFullException;
+import dev.controlplane.auditsink.spool.SpoolUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/audit")
@@ -30,10 +59,22 @@ public class AuditController {
 
     private final AuditIngestService ingestService;
     private final AuditQueryService queryService;
+    private final StatsService statsService;
+    private final IngestMetrics ingestMetrics;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int maxBatchItems;
 
-    public AuditController(AuditIngestService ingestService, AuditQueryService queryService) {
+    public AuditController(AuditIngestService ingestService, AuditQueryService queryService,
+                           StatsService statsService, IngestMetrics ingestMetrics, ObjectMapper objectMapper, Validator validator,
+                           @Value("${audit.ingest.batch.maxItems:1000}") int maxBatchItems) {
         this.ingestService = ingestService;
         this.queryService = queryService;
+        this.statsService = statsService;
+        this.ingestMetrics = ingestMetrics;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.maxBatchItems = maxBatchItems;
     }
 
     @PostMapping("/events")
@@ -56,19 +97,103 @@ public class AuditController {
         }
     }
 
+    @PostMapping(value = "/events", consumes = WireFormatConfig.PROTOBUF)
+    public ResponseEntity<?> ingestProtobuf(@RequestBody AuditEvent event, HttpServletRequest http) {
+        AuditEventRequest req = ProtobufEvents.toRequest(event);
+        StringBuilder errors = new StringBuilder();
+        validate(req, "", errors);
+        if (!errors.isEmpty()) {
+            log.warn("Validation error in audit event request: {}", errors);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "validation_failed", "message", "Validation failed: " + errors));
+        }
+        return ingest(req, http);
+    }
+
+    @PostMapping(value = "/events:batch", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            "application/x-jackson-smile", MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Object> ingestBatch(@RequestBody List<AuditEventRequest> reqs, HttpServletRequest http) {
+        return handleBatch(reqs, http);
+    }
+
+    @PostMapping(value = "/events:batch", consumes = WireFormatConfig.PROTOBUF)
+    public ResponseEntity<Object> ingestBatchProtobuf(@RequestBody AuditEventBatch batch, HttpServletRequest http) {
+        return handleBatch(ProtobufEvents.toRequests(batch.getEventsList()), http);
+    }
+
+    @PostMapping(value = "/events:batch", consumes = "application/x-ndjson")
+    public ResponseEntity<Object> ingestBatchNdjson(HttpServletRequest http) throws IOException {
+        long start = System.nanoTime();
+        List<AuditEventRequest> reqs = new ArrayList<>();
+        try (MappingIterator<AuditEventRequest> it = objectMapper.readerFor(AuditEventRequest.class)
+                .readValues(http.getInputStream())) {
+            while (it.hasNextValue()) {
+                reqs.add(it.nextValue());
+                if (reqs.size() > maxBatchItems) break;
+            }
+        }
+        ingestMetrics.recordStage(IngestMetrics.Stage.BIND, true, "ok", start);
+        return handleBatch(reqs, http);
+    }
+
+    private ResponseEntity<Object> handleBatch(List<AuditEventRequest> reqs, HttpServletRequest http) {
+        if (reqs == null || reqs.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "validation_failed", "message", "Batch must contain at least one event"));
+        }
+        if (reqs.size() > maxBatchItems) {
+            log.warn("Rejected audit event batch: size exceeds limit of {}", maxBatchItems);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "batch_too_large", "message", "Batch may contain at most " + maxBatchItems + " events"));
+        }
+
+        StringBuilder errors = new StringBuilder();
+        for (int i = 0; i < reqs.size(); i++) {
+            AuditEventRequest req = reqs.get(i);
+            if (req == null) {
+                errors.append("[").append(i).append("] must not be null; ");
+                continue;
+            }
+            validate(req, "[" + i + "].", errors);
+        }
+        if (!errors.isEmpty()) {
+            log.warn("Validation error in audit event batch: {}", errors);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "validation_failed", "message", "Validation failed: " + errors));
+        }
+
+        log.info("Received audit event batch: size={}, clientIP={}", reqs.size(), clientIp(http));
+        List<IngestResponse> resp = ingestService.ingestBatch(reqs, http);
+
+        boolean anyNew = resp.stream().anyMatch(r -> !r.deduped());
+        HttpStatus status = anyNew ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(resp);
+    }
+
+    private void validate(AuditEventRequest req, String prefix, StringBuilder errors) {
+        for (ConstraintViolation<AuditEventRequest> v : validator.validate(req)) {
+            errors.append(prefix).append(v.getPropertyPath()).append(" ").append(v.getMessage()).append("; ");
+        }
+    }
+
     @GetMapping("/health")
     public String health() {
         return "ok";
     }
 
     @GetMapping("/events")
-    public ResponseEntity<PagedResponse<AuditEventResponse>> getEvents(
+    public ResponseEntity<?> getEvents(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "occurred_at_utc") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortOrder) {
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String includeTotal) {
         
-        PagedResponse<AuditEventResponse> response = queryService.getEvents(page, size, sortBy, sortOrder);
+        if (cursor != null) {
+            return ResponseEntity.ok(queryService.getEventsAfter(cursor, size, sortBy, sortOrder));
+        }
+        PagedResponse<AuditEventResponse> response = queryService.getEvents(page, size, sortBy, sortOrder, includeTotal);
         return ResponseEntity.ok(response);
     }
 
@@ -80,7 +205,7 @@ public class AuditController {
     }
 
     @GetMapping("/events/search")
-    public ResponseEntity<PagedResponse<AuditEventResponse>> searchEvents(
+    public ResponseEntity<?> searchEvents(
             @RequestParam(required = false) String tenantId,
             @RequestParam(required = false) String actorId,
             @RequestParam(required = false) String subjectId,
@@ -94,16 +219,104 @@ public class AuditController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "occurred_at_utc") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortOrder) {
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String includeTotal) {
 
+        if (cursor != null) {
+            return ResponseEntity.ok(queryService.searchEventsAfter(
+                tenantId, actorId, subjectId, action, outcome,
+                correlationId, traceId, appId, fromDate, toDate,
+                cursor, size, sortBy, sortOrder
+            ));
+        }
         PagedResponse<AuditEventResponse> response = queryService.searchEvents(
             tenantId, actorId, subjectId, action, outcome, 
             correlationId, traceId, appId, fromDate, toDate,
-            page, size, sortBy, sortOrder
+            page, size, sortBy, sortOrder, includeTotal
         );
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/events/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(required = false) String tenantId,
+            @RequestParam(required = false) String actorId,
+            @RequestParam(required = false) String subjectId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String correlationId,
+            @RequestParam(required = false) String traceId,
+            @RequestParam(required = false) String appId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime toDate,
+            @RequestParam(defaultValue = "asc") String sortOrder,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        boolean descending = AuditQueryService.isDescending(sortOrder);
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (SequenceWriter writer = exportFormat.open(objectMapper, target)) {
+                queryService.exportEvents(
+                    tenantId, actorId, subjectId, action, outcome,
+                    correlationId, traceId, appId, fromDate, toDate,
+                    descending, event -> {
+                        try {
+                            writer.write(event);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            } catch (UncheckedIOException e) {
+                // usually the client went away mid-download
+                log.warn("Audit event export aborted: {}", e.getCause().getMessage());
+            }
+        };
+
+        String filename = "audit-events." + exportFormat.extension + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : exportFormat.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestParam(required = false) String tenantId,
+            @RequestParam(required = false) String actorId,
+            @RequestParam(required = false) String subjectId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String correlationId,
+            @RequestParam(required = false) String traceId,
+            @RequestParam(required = false) String appId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime toDate,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        return queryService.tailEvents(
+            tenantId, actorId, subjectId, action, outcome,
+            correlationId, traceId, appId, fromDate, toDate,
+            lastEventId
+        );
+    }
+
+    @GetMapping("/stats")
+    public StatsResponse stats(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) String tenantId,
+            @RequestParam(required = false) String appId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) List<String> groupBy) {
+
+        return statsService.stats(granularity, from, to, tenantId, appId, action, outcome, groupBy);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex) {
         StringBuilder errors = new StringBuilder("Validation failed: ");
@@ -116,6 +329,58 @@ public class AuditController {
                 .body(Map.of("error", "validation_failed", "message", errors.toString()));
     }
 
+    @ExceptionHandler(IngestRejectedException.class)
+    public ResponseEntity<Object> handleIngestRejected(IngestRejectedException ex) {
+        log.warn("Audit event rejected by ingest pipeline: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "ingest_overloaded", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(SpoolUnavailableException.class)
+    public ResponseEntity<Object> handleSpoolUnavailable(SpoolUnavailableException ex) {
+        log.error("Audit event not accepted by durable spool: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("error", "spool_unavailable", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<Object> handleBatchTooLarge(BatchTooLargeException ex) {
+        log.warn("Rejected audit event batch: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("error", "batch_too_large", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler({HttpMessageNotReadableException.class, JsonMappingException.class})
+    public ResponseEntity<Object> handleNotReadable(Exception ex) {
+        // Jackson and the converters wrap the I/O error raised by BatchSizeLimitFilter's stream
+        for (Throwable t = ex.getCause(); t != null; t = t.getCause()) {
+            if (t instanceof BatchTooLargeException tooLarge) return handleBatchTooLarge(tooLarge);
+        }
+        return handleGenericException(ex);
+    }
+
+    @ExceptionHandler(LiveTailFullException.class)
+    public ResponseEntity<Object> handleLiveTailFull(LiveTailFullException ex) {
+        log.warn("Live tail rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("error", "tail_full", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursor(InvalidCursorException ex) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "invalid_cursor", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<Object> handleInvalidQuery(InvalidQueryException ex) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "invalid_query", "message", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGenericException(Exception ex) {
         log.error("Unexpected error in audit controller: {}", ex.getMessage(), ex);
@@ -0,0 +1,13 @@
+package dev.controlplane.auditsink.web;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a batch request body that exceeds {@code audit.ingest.batch.maxBytes}. It is
+ * an {@link IOException} so that it surfaces from inside message converters and streaming parsers.
+ */
+public class BatchTooLargeException extends IOException {
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,53 @@
+package dev.controlplane.auditsink.web;
+
+import dev.controlplane.auditsink.model.AuditEventRequest;
+import dev.controlplane.auditsink.proto.AuditEvent;
+import dev.controlplane.auditsink.proto.AuditEventBatch;
+import dev.controlplane.auditsink.service.IngestMetrics;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Times binding of ingest request bodies (JSON, Smile, CBOR or protobuf) as the {@code bind} stage. The message converter
+ * reads the body between {@code beforeBodyRead} and {@code afterBodyRead} on the same thread.
+ */
+@ControllerAdvice
+public class BindTimingAdvice extends RequestBodyAdviceAdapter {
+
+    private static final ThreadLocal<long[]> START = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final IngestMetrics metrics;
+
+    public BindTimingAdvice(IngestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        ResolvableType type = ResolvableType.forType(targetType);
+        return type.toClass() == AuditEventRequest.class
+                || type.toClass() == AuditEvent.class || type.toClass() == AuditEventBatch.class
+                || (type.hasGenerics() && type.getGeneric(0).toClass() == AuditEventRequest.class);
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        START.get()[0] = System.nanoTime();
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        metrics.recordStage(IngestMetrics.Stage.BIND, body instanceof Iterable<?> || body instanceof AuditEventBatch, "ok", START.get()[0]);
+        return body;
+    }
+}
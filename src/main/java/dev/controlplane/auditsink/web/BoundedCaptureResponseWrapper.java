@@ -0,0 +1,113 @@
+package dev.controlplane.auditsink.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Writes the response straight through to the client while keeping a copy of at most
+ * {@code limit} leading bytes for logging. Unlike {@code ContentCachingResponseWrapper} the
+ * body is never buffered in full.
+ */
+class BoundedCaptureResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int limit;
+    private final ByteArrayOutputStream captured;
+    private long totalBytes;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    BoundedCaptureResponseWrapper(HttpServletResponse response, int limit) {
+        super(response);
+        this.limit = limit;
+        this.captured = new ByteArrayOutputStream(Math.min(limit, 1024));
+    }
+
+    byte[] getCapturedBytes() {
+        return captured.toByteArray();
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CapturingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        super.flushBuffer();
+    }
+
+    /** Flushes a writer handed out by this wrapper; the container only knows about its own. */
+    void flushWriter() {
+        if (writer != null) writer.flush();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        totalBytes += len;
+        int room = limit - captured.size();
+        if (room > 0) captured.write(b, off, Math.min(room, len));
+    }
+
+    private final class CapturingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        CapturingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            totalBytes++;
+            if (captured.size() < limit) captured.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package dev.controlplane.auditsink.web;
+
+import dev.controlplane.auditsink.model.SearchPatternReport;
+import dev.controlplane.auditsink.service.SearchPatternStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/audit/diagnostics")
+@ConditionalOnProperty(name = "audit.diagnostics.searchPatterns.enabled", havingValue = "true")
+public class DiagnosticsController {
+
+    private final SearchPatternStats searchPatterns;
+
+    public DiagnosticsController(SearchPatternStats searchPatterns) {
+        this.searchPatterns = searchPatterns;
+    }
+
+    @GetMapping("/search-patterns")
+    public SearchPatternReport searchPatterns() {
+        return searchPatterns.report();
+    }
+
+    @DeleteMapping("/search-patterns")
+    public ResponseEntity<Void> resetSearchPatterns() {
+        searchPatterns.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
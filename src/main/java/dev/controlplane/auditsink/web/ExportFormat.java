@@ -0,0 +1,53 @@
+package dev.controlplane.auditsink.web;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.controlplane.auditsink.model.AuditEventResponse;
+import dev.controlplane.auditsink.service.InvalidQueryException;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/** Row-at-a-time output formats for {@code GET /audit/events/export}. */
+enum ExportFormat {
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+    CSV("csv", MediaType.parseMediaType("text/csv"));
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private static final CsvSchema CSV_SCHEMA = CSV_MAPPER.schemaFor(AuditEventResponse.class).withHeader();
+
+    final String extension;
+    final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    static ExportFormat parse(String value) {
+        return switch (value == null ? "ndjson" : value.trim().toLowerCase(Locale.ROOT)) {
+            case "ndjson", "jsonl" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new InvalidQueryException("format must be ndjson or csv");
+        };
+    }
+
+    /** Opens a writer that serializes each value as it is written; closing it closes {@code out}. */
+    SequenceWriter open(ObjectMapper json, OutputStream out) throws IOException {
+        return switch (this) {
+            case NDJSON -> json.writerFor(AuditEventResponse.class).withRootValueSeparator("\n").writeValues(out);
+            case CSV -> CSV_MAPPER.writer(CSV_SCHEMA).writeValues(out);
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package dev.controlplane.auditsink.web;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
+import dev.controlplane.auditsink.model.AuditEventRequest;
+import dev.controlplane.auditsink.proto.AuditEvent;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the protobuf wire format onto {@link AuditEventRequest} with the same values Jackson would
+ * bind from the equivalent JSON: unset fields become null and timestamps are UTC, so the idempotency
+ * key does not depend on the format.
+ */
+final class ProtobufEvents {
+
+    private static final double MAX_EXACT_LONG = 9007199254740992.0; // 2^53
+
+    private ProtobufEvents() {}
+
+    static AuditEventRequest toRequest(AuditEvent e) {
+        return new AuditEventRequest(
+                e.hasSchemaVersion() ? e.getSchemaVersion() : null,
+                str(e.getProducerId()),
+                e.hasOccurredAtUtc() ? time(e.getOccurredAtUtc()) : null,
+                str(e.getAction()),
+                str(e.getOutcome()),
+                e.hasSubject() ? new AuditEventRequest.Subject(str(e.getSubject().getType()), str(e.getSubject().getId())) : null,
+                e.hasActor() ? actor(e.getActor()) : null,
+                e.hasContext() ? context(e.getContext()) : null,
+                e.hasChannel() ? e.getChannel() : null,
+                e.hasCorrelationId() ? e.getCorrelationId() : null,
+                e.hasTraceId() ? e.getTraceId() : null,
+                e.hasPolicy() ? new AuditEventRequest.Policy(
+                        e.getPolicy().hasDecisionId() ? e.getPolicy().getDecisionId() : null,
+                        e.getPolicy().hasRulePath() ? e.getPolicy().getRulePath() : null) : null,
+                e.hasPayload() ? payload(e.getPayload()) : null,
+                e.hasError() ? new AuditEventRequest.ErrorInfo(
+                        e.getError().hasErrorType() ? e.getError().getErrorType() : null,
+                        e.getError().hasErrorMessageHash() ? e.getError().getErrorMessageHash() : null) : null,
+                e.hasIdempotencyKey() ? e.getIdempotencyKey() : null);
+    }
+
+    static List<AuditEventRequest> toRequests(List<AuditEvent> events) {
+        List<AuditEventRequest> out = new ArrayList<>(events.size());
+        for (AuditEvent e : events) out.add(toRequest(e));
+        return out;
+    }
+
+    private static AuditEventRequest.Actor actor(AuditEvent.Actor a) {
+        return new AuditEventRequest.Actor(str(a.getId()), str(a.getType()),
+                a.getRolesCount() == 0 ? null : List.copyOf(a.getRolesList()),
+                a.hasTenantId() ? a.getTenantId() : null);
+    }
+
+    private static AuditEventRequest.Context context(AuditEvent.Context c) {
+        return new AuditEventRequest.Context(
+                c.hasAppId() ? c.getAppId() : null,
+                c.hasTrackId() ? c.getTrackId() : null,
+                c.hasReleaseId() ? c.getReleaseId() : null,
+                c.hasJiraKey() ? c.getJiraKey() : null,
+                c.hasSnowSysId() ? c.getSnowSysId() : null);
+    }
+
+    private static AuditEventRequest.Payload payload(AuditEvent.Payload p) {
+        return new AuditEventRequest.Payload(
+                p.hasArgsRedacted() ? struct(p.getArgsRedacted()) : null,
+                p.hasResultRedacted() ? struct(p.getResultRedacted()) : null,
+                p.hasPayloadHash() ? p.getPayloadHash() : null);
+    }
+
+    /** Same instant and rendering as Jackson's OffsetDateTime binding, which adjusts to UTC. */
+    private static OffsetDateTime time(Timestamp t) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(t.getSeconds(), t.getNanos()), ZoneOffset.UTC);
+    }
+
+    private static Map<String, Object> struct(Struct s) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Value> f : s.getFieldsMap().entrySet()) {
+            map.put(f.getKey(), value(f.getValue()));
+        }
+        return map;
+    }
+
+    private static Object value(Value v) {
+        return switch (v.getKindCase()) {
+            case STRUCT_VALUE -> struct(v.getStructValue());
+            case LIST_VALUE -> list(v.getListValue());
+            case STRING_VALUE -> v.getStringValue();
+            case BOOL_VALUE -> v.getBoolValue();
+            case NUMBER_VALUE -> number(v.getNumberValue());
+            default -> null;
+        };
+    }
+
+    private static List<Object> list(ListValue l) {
+        List<Object> out = new ArrayList<>(l.getValuesCount());
+        for (Value v : l.getValuesList()) out.add(value(v));
+        return out;
+    }
+
+    /** Struct only carries doubles; integral values come back as Integer or Long like JSON numbers. */
+    private static Object number(double d) {
+        if (d != Math.rint(d) || Math.abs(d) >= MAX_EXACT_LONG) return d;
+        long l = (long) d;
+        return l == (int) l ? (Object) (int) l : (Object) l;
+    }
+
+    private static String str(String s) {
+        return s.isEmpty() ? null : s;
+    }
+}
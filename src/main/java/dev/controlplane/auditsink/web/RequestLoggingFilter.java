@@ -1,5 +1,7 @@
 package dev.controlplane.auditsink.web;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -7,158 +9,209 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Dumps requests and responses to the REQUEST_DUMP logger.
+ * <p>
+ * {@code audit.requestDump.mode}: {@code off}, {@code headers} (the default: request line, headers,
+ * status and timing only), {@code sampled} (full dumps for a random fraction of requests, optionally
+ * per route) or {@code full}, meant for debugging only. Bodies are captured up to {@code maxBodyBytes} and logged as raw text, and the
+ * dump is written after the chain so the request body has actually been read.
+ */
 @Component
 @Order(1)
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger requestLog = LoggerFactory.getLogger("REQUEST_DUMP");
-    private final ObjectMapper objectMapper;
 
-    public RequestLoggingFilter(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    enum Mode { OFF, HEADERS, SAMPLED, FULL }
+
+    private final JsonFactory jsonFactory;
+    private final Mode mode;
+    private final double sampleRate;
+    private final List<RouteRate> routeRates;
+    private final int maxBodyBytes;
+
+    public RequestLoggingFilter(
+            ObjectMapper objectMapper,
+            @Value("${audit.requestDump.mode:headers}") String mode,
+            @Value("${audit.requestDump.sampleRate:0.01}") double sampleRate,
+            @Value("${audit.requestDump.routeSampleRates:}") List<String> routeSampleRates,
+            @Value("${audit.requestDump.maxBodyBytes:8192}") int maxBodyBytes
+    ) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.sampleRate = sampleRate;
+        this.routeRates = parseRouteRates(routeSampleRates);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return mode == Mode.OFF;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        boolean withBodies = switch (mode) {
+            case FULL -> true;
+            case SAMPLED -> sampled(request.getRequestURI());
+            default -> false;
+        };
+        if (mode == Mode.SAMPLED && !withBodies) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingRequestWrapper wrappedRequest = null;
+        BoundedCaptureResponseWrapper wrappedResponse = null;
+        if (withBodies) {
+            wrappedRequest = new ContentCachingRequestWrapper(request, maxBodyBytes);
+            wrappedResponse = new BoundedCaptureResponseWrapper(response, maxBodyBytes);
+        }
 
         long startTime = System.currentTimeMillis();
         String requestId = UUID.randomUUID().toString();
 
         try {
-            // Log request details
-            logRequest(wrappedRequest, requestId, startTime);
-            
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
-            
+            filterChain.doFilter(wrappedRequest != null ? wrappedRequest : request,
+                    wrappedResponse != null ? wrappedResponse : response);
         } finally {
+            if (wrappedResponse != null) wrappedResponse.flushWriter();
             long duration = System.currentTimeMillis() - startTime;
-            
-            // Log response details
-            logResponse(wrappedResponse, requestId, duration);
-            
-            // Copy cached content to actual response
-            wrappedResponse.copyBodyToResponse();
+            logRequest(request, wrappedRequest, requestId, startTime);
+            logResponse(response, wrappedResponse, requestId, duration);
+        }
+    }
+
+    private boolean sampled(String uri) {
+        double rate = sampleRate;
+        for (RouteRate r : routeRates) {
+            if (uri.startsWith(r.prefix())) {
+                rate = r.rate();
+                break;
+            }
         }
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 
-    private void logRequest(ContentCachingRequestWrapper request, String requestId, long timestamp) {
+    private void logRequest(HttpServletRequest request, ContentCachingRequestWrapper body, String requestId, long timestamp) {
         try {
-            Map<String, Object> requestData = new LinkedHashMap<>();
-            requestData.put("type", "REQUEST");
-            requestData.put("requestId", requestId);
-            requestData.put("timestamp", Instant.ofEpochMilli(timestamp).toString());
-            requestData.put("method", request.getMethod());
-            requestData.put("uri", request.getRequestURI());
-            requestData.put("queryString", request.getQueryString());
-            requestData.put("remoteAddr", getClientIp(request));
-            requestData.put("userAgent", request.getHeader("User-Agent"));
-            
-            // Log headers
-            Map<String, String> headers = new LinkedHashMap<>();
-            Enumeration<String> headerNames = request.getHeaderNames();
-            while (headerNames.hasMoreElements()) {
-                String headerName = headerNames.nextElement();
-                String headerValue = request.getHeader(headerName);
-                // Redact sensitive headers
-                if (isSensitiveHeader(headerName)) {
-                    headerValue = "[REDACTED]";
+            StringWriter sw = new StringWriter(512);
+            try (JsonGenerator gen = jsonFactory.createGenerator(sw)) {
+                gen.writeStartObject();
+                gen.writeStringField("type", "REQUEST");
+                gen.writeStringField("requestId", requestId);
+                gen.writeStringField("timestamp", Instant.ofEpochMilli(timestamp).toString());
+                gen.writeStringField("method", request.getMethod());
+                gen.writeStringField("uri", request.getRequestURI());
+                gen.writeStringField("queryString", request.getQueryString());
+                gen.writeStringField("remoteAddr", getClientIp(request));
+                gen.writeStringField("userAgent", request.getHeader("User-Agent"));
+
+                gen.writeObjectFieldStart("headers");
+                Enumeration<String> headerNames = request.getHeaderNames();
+                while (headerNames.hasMoreElements()) {
+                    String headerName = headerNames.nextElement();
+                    gen.writeStringField(headerName, isSensitiveHeader(headerName) ? "[REDACTED]" : request.getHeader(headerName));
                 }
-                headers.put(headerName, headerValue);
-            }
-            requestData.put("headers", headers);
-            
-            // Log request parameters
-            Map<String, String[]> parameterMap = request.getParameterMap();
-            if (!parameterMap.isEmpty()) {
-                requestData.put("parameters", parameterMap);
-            }
-            
-            // Log request body for POST/PUT requests
-            if ("POST".equals(request.getMethod()) || "PUT".equals(request.getMethod()) || "PATCH".equals(request.getMethod())) {
-                byte[] content = request.getContentAsByteArray();
-                if (content.length > 0) {
-                    String contentType = request.getContentType();
-                    if (contentType != null && contentType.contains("application/json")) {
-                        try {
-                            String bodyContent = new String(content, request.getCharacterEncoding());
-                            requestData.put("body", objectMapper.readValue(bodyContent, Object.class));
-                        } catch (Exception e) {
-                            requestData.put("body", new String(content, request.getCharacterEncoding()));
-                        }
-                    } else {
-                        requestData.put("body", new String(content, request.getCharacterEncoding()));
-                    }
-                    requestData.put("contentLength", content.length);
+                gen.writeEndObject();
+
+                if (body != null) {
+                    byte[] content = body.getContentAsByteArray();
+                    writeBody(gen, content, Math.max(request.getContentLengthLong(), content.length), request.getCharacterEncoding());
                 }
+                gen.writeEndObject();
             }
-
-            String logMessage = objectMapper.writeValueAsString(requestData);
-            requestLog.info(logMessage);
-            
+            requestLog.info(sw.toString());
         } catch (Exception e) {
             requestLog.error("Error logging request: {}", e.getMessage(), e);
         }
     }
 
-    private void logResponse(ContentCachingResponseWrapper response, String requestId, long duration) {
+    private void logResponse(HttpServletResponse response, BoundedCaptureResponseWrapper body, String requestId, long duration) {
         try {
-            Map<String, Object> responseData = new LinkedHashMap<>();
-            responseData.put("type", "RESPONSE");
-            responseData.put("requestId", requestId);
-            responseData.put("timestamp", Instant.now().toString());
-            responseData.put("status", response.getStatus());
-            responseData.put("duration", duration);
-            
-            // Log response headers
-            Map<String, String> headers = new LinkedHashMap<>();
-            for (String headerName : response.getHeaderNames()) {
-                headers.put(headerName, response.getHeader(headerName));
-            }
-            responseData.put("headers", headers);
-            
-            // Log response body
-            byte[] content = response.getContentAsByteArray();
-            if (content.length > 0) {
-                String contentType = response.getContentType();
-                if (contentType != null && contentType.contains("application/json")) {
-                    try {
-                        String bodyContent = new String(content, response.getCharacterEncoding());
-                        responseData.put("body", objectMapper.readValue(bodyContent, Object.class));
-                    } catch (Exception e) {
-                        responseData.put("body", new String(content, response.getCharacterEncoding()));
-                    }
-                } else {
-                    responseData.put("body", new String(content, response.getCharacterEncoding()));
+            StringWriter sw = new StringWriter(512);
+            try (JsonGenerator gen = jsonFactory.createGenerator(sw)) {
+                gen.writeStartObject();
+                gen.writeStringField("type", "RESPONSE");
+                gen.writeStringField("requestId", requestId);
+                gen.writeStringField("timestamp", Instant.now().toString());
+                gen.writeNumberField("status", response.getStatus());
+                gen.writeNumberField("duration", duration);
+
+                gen.writeObjectFieldStart("headers");
+                for (String headerName : response.getHeaderNames()) {
+                    gen.writeStringField(headerName, response.getHeader(headerName));
                 }
-                responseData.put("contentLength", content.length);
-            }
+                gen.writeEndObject();
 
-            String logMessage = objectMapper.writeValueAsString(responseData);
-            requestLog.info(logMessage);
-            
+                if (body != null) {
+                    writeBody(gen, body.getCapturedBytes(), body.getTotalBytes(), response.getCharacterEncoding());
+                }
+                gen.writeEndObject();
+            }
+            requestLog.info(sw.toString());
         } catch (Exception e) {
             requestLog.error("Error logging response: {}", e.getMessage(), e);
         }
     }
 
+    /** Writes the captured bytes as a plain string field; the body is never parsed. */
+    private static void writeBody(JsonGenerator gen, byte[] content, long totalBytes, String encoding) throws IOException {
+        if (content.length == 0) return;
+        gen.writeStringField("body", new String(content, charset(encoding)));
+        gen.writeNumberField("contentLength", totalBytes);
+        if (totalBytes > content.length) {
+            gen.writeBooleanField("bodyTruncated", true);
+        }
+    }
+
+    private static Charset charset(String encoding) {
+        try {
+            return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        } catch (Exception e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /** Parses {@code /path/prefix=rate} entries, longest prefix first. */
+    private static List<RouteRate> parseRouteRates(List<String> entries) {
+        List<RouteRate> rates = new ArrayList<>();
+        for (String entry : entries) {
+            if (entry == null || entry.isBlank()) continue;
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("audit.requestDump.routeSampleRates entry must be prefix=rate: " + entry);
+            }
+            rates.add(new RouteRate(entry.substring(0, eq).trim(), Double.parseDouble(entry.substring(eq + 1).trim())));
+        }
+        rates.sort(Comparator.comparingInt((RouteRate r) -> r.prefix().length()).reversed());
+        return List.copyOf(rates);
+    }
+
+    private record RouteRate(String prefix, double rate) {}
+
     private String getClientIp(HttpServletRequest request) {
         String xff = request.getHeader("X-Forwarded-For");
         if (xff != null && !xff.isBlank()) {
-            return xff.split(",")[0].trim();
+            int comma = xff.indexOf(',');
+            return (comma < 0 ? xff : xff.substring(0, comma)).trim();
         }
         String xrip = request.getHeader("X-Real-IP");
         if (xrip != null && !xrip.isBlank()) {
@@ -169,10 +222,10 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private boolean isSensitiveHeader(String headerName) {
         String lowerName = headerName.toLowerCase();
-        return lowerName.contains("authorization") || 
-               lowerName.contains("cookie") || 
+        return lowerName.contains("authorization") ||
+               lowerName.contains("cookie") ||
                lowerName.contains("x-api-key") ||
                lowerName.contains("token") ||
                lowerName.contains("password");
     }
-}
\ No newline at end of file
+}
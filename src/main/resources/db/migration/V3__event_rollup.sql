@@ -0,0 +1,29 @@
+-- V3__event_rollup.sql
+-- Event counts per time bucket and (tenant, app, action, outcome), maintained incrementally by the
+-- application. Missing dimensions are stored as '' so they can be part of the primary key.
+CREATE TABLE IF NOT EXISTS audit_event_rollup (
+  granularity VARCHAR(8) NOT NULL,
+  bucket_start TIMESTAMP NOT NULL,
+  tenant_id VARCHAR(128) NOT NULL,
+  app_id VARCHAR(128) NOT NULL,
+  action VARCHAR(128) NOT NULL,
+  outcome VARCHAR(32) NOT NULL,
+  event_count BIGINT NOT NULL,
+  PRIMARY KEY (granularity, bucket_start, tenant_id, app_id, action, outcome)
+);
+
+-- backfill from the events already stored
+INSERT INTO audit_event_rollup(granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+SELECT 'minute', DATE_TRUNC('minute', occurred_at_utc), COALESCE(tenant_id, ''), COALESCE(app_id, ''), action, outcome, COUNT(*)
+FROM audit_event
+GROUP BY DATE_TRUNC('minute', occurred_at_utc), COALESCE(tenant_id, ''), COALESCE(app_id, ''), action, outcome;
+
+INSERT INTO audit_event_rollup(granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+SELECT 'hour', DATE_TRUNC('hour', bucket_start), tenant_id, app_id, action, outcome, SUM(event_count)
+FROM audit_event_rollup WHERE granularity = 'minute'
+GROUP BY DATE_TRUNC('hour', bucket_start), tenant_id, app_id, action, outcome;
+
+INSERT INTO audit_event_rollup(granularity, bucket_start, tenant_id, app_id, action, outcome, event_count)
+SELECT 'day', DATE_TRUNC('day', bucket_start), tenant_id, app_id, action, outcome, SUM(event_count)
+FROM audit_event_rollup WHERE granularity = 'hour'
+GROUP BY DATE_TRUNC('day', bucket_start), tenant_id, app_id, action, outcome;
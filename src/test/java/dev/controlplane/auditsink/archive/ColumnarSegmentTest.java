@@ -0,0 +1,104 @@
+package dev.controlplane.auditsink.archive;
+
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarSegmentTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2025, 8, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static AuditEventEntity entity(int i) {
+        AuditEventEntity e = new AuditEventEntity();
+        e.id = UUID.randomUUID();
+        // out of order and with nanos, so deltas go negative
+        e.occurredAtUtc = START.plusSeconds(i % 2 == 0 ? i * 37L : -i * 11L).plusNanos(i * 1_000_001L);
+        e.action = i % 3 == 0 ? "DEPLOY" : "APPROVE";
+        e.outcome = "SUCCESS";
+        e.subjectType = "release";
+        e.subjectId = "rel-" + i;
+        e.actorId = i % 5 == 0 ? null : "alice";
+        e.actorType = "USER";
+        e.roles = "deployer,admin";
+        e.tenantId = "tenant-\u00E9";
+        e.channel = i % 4 == 0 ? null : "api";
+        e.ip = "10.0.0." + i;
+        e.userAgent = "curl/8.0";
+        e.correlationId = "corr-" + i / 2;
+        e.traceId = "trace-\uD83D\uDE80-" + i;
+        e.appId = "APP";
+        e.argsRedacted = "{\"n\":" + i + "}";
+        e.resultRedacted = i % 2 == 0 ? null : "{\"status\":\"ok\"}";
+        e.errorMessageHash = "";
+        e.schemaVersion = i % 7 == 0 ? null : 1 + i % 2;
+        e.idempotencyKey = "key-" + i;
+        return e;
+    }
+
+    private static void assertSameEvent(AuditEventEntity expected, AuditEventEntity actual) throws IllegalAccessException {
+        for (Field f : AuditEventEntity.class.getFields()) {
+            assertEquals(f.get(expected), f.get(actual), f.getName());
+        }
+    }
+
+    @Test
+    void roundTripsEveryColumn() throws IllegalAccessException {
+        List<AuditEventEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) rows.add(entity(i));
+
+        ColumnarSegment.Reader reader = new ColumnarSegment.Reader(ColumnarSegment.encode(rows));
+
+        assertEquals(rows.size(), reader.rowCount());
+        for (int i = 0; i < rows.size(); i++) assertSameEvent(rows.get(i), reader.row(i));
+    }
+
+    @Test
+    void roundTripsDictionaryAndPlainEncodedColumns() {
+        List<AuditEventEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) rows.add(entity(i));
+
+        ColumnarSegment.Reader reader = new ColumnarSegment.Reader(ColumnarSegment.encode(rows));
+
+        // two distinct actions are dictionary-encoded, twenty distinct subject ids are not
+        assertArrayEquals(rows.stream().map(e -> e.action).toArray(), reader.strings("action"));
+        assertArrayEquals(rows.stream().map(e -> e.subjectId).toArray(), reader.strings("subject_id"));
+        assertArrayEquals(rows.stream().map(e -> e.actorId).toArray(), reader.strings("actor_id"));
+        assertNull(reader.strings("no_such_column"));
+    }
+
+    @Test
+    void probeDecodesOnlyTheRequestedColumn() {
+        List<AuditEventEntity> rows = List.of(entity(1), entity(2));
+
+        AuditEventEntity probe = new ColumnarSegment.Reader(ColumnarSegment.encode(rows)).probe(1, "trace_id");
+
+        assertEquals(rows.get(1).id, probe.id);
+        assertEquals(rows.get(1).occurredAtUtc, probe.occurredAtUtc);
+        assertEquals(rows.get(1).traceId, probe.traceId);
+        assertNull(probe.action);
+    }
+
+    @Test
+    void roundTripsEmptySegment() {
+        ColumnarSegment.Reader reader = new ColumnarSegment.Reader(ColumnarSegment.encode(List.of()));
+        assertEquals(0, reader.rowCount());
+        assertEquals(0, reader.ids().length);
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarSegment.Reader("not a segment file".getBytes()));
+    }
+}
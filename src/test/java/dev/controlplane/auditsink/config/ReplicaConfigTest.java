@@ -0,0 +1,71 @@
+package dev.controlplane.auditsink.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.controlplane.auditsink.store.ReadRouting;
+import dev.controlplane.auditsink.store.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ReplicaConfigTest {
+
+    private static String createDatabase(String name) {
+        String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        try (HikariDataSource ds = new HikariDataSource()) {
+            ds.setJdbcUrl(url);
+            ds.setUsername("sa");
+            new JdbcTemplate(ds).execute("CREATE TABLE origin AS SELECT '" + name + "' AS name");
+        }
+        return url;
+    }
+
+    private static BeanPostProcessor processor(MockEnvironment env) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("meterRegistry", new SimpleMeterRegistry());
+        return ReplicaConfig.replicaRouting(env, beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void wrapsPrimaryAndRoutesReadsToConfiguredReplica() throws Exception {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl(createDatabase("primary"));
+        primary.setUsername("sa");
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("audit.replica.targets[0].name", "r1")
+                .withProperty("audit.replica.targets[0].url", createDatabase("r1"))
+                .withProperty("audit.replica.targets[0].username", "sa")
+                .withProperty("audit.replica.targets[0].password", "");
+
+        Object bean = processor(env).postProcessAfterInitialization(primary, "dataSource");
+        try (ReplicaRoutingDataSource routing = assertInstanceOf(ReplicaRoutingDataSource.class, bean)) {
+            JdbcTemplate jdbc = new JdbcTemplate(routing);
+            String origin = "SELECT name FROM origin";
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            // the first health check runs in the background; until then reads use the primary
+            while (!"r1".equals(ReadRouting.onReplica(() -> jdbc.queryForObject(origin, String.class)))) {
+                if (System.nanoTime() > deadline) break;
+                Thread.sleep(10);
+            }
+            assertEquals("r1", ReadRouting.onReplica(() -> jdbc.queryForObject(origin, String.class)));
+            assertEquals("primary", jdbc.queryForObject(origin, String.class));
+        }
+    }
+
+    @Test
+    void leavesDataSourceAloneWithoutTargets() {
+        try (HikariDataSource primary = new HikariDataSource()) {
+            assertSame(primary, processor(new MockEnvironment()).postProcessAfterInitialization(primary, "dataSource"));
+        }
+    }
+}
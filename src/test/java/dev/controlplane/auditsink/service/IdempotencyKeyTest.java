@@ -0,0 +1,73 @@
+package dev.controlplane.auditsink.service;
+
+import dev.controlplane.auditsink.model.AuditEventRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyKeyTest {
+
+    private AuditIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new AuditIngestService(null, null, registry, new IngestMetrics(registry, 100), null, null,
+                Optional.empty(), Optional.empty(), Optional.empty(), null, null);
+    }
+
+    /** The key as it was computed before streaming: join the fields, then hash the String's UTF-8 bytes. */
+    private static String legacyKey(AuditEventRequest req, String ip) throws Exception {
+        String s = String.join("|",
+                "p:" + req.producerId(),
+                "ip:" + ip,
+                "ts:" + req.occurredAtUtc().toString(),
+                "a:" + req.action(),
+                "st:" + req.subject().type(),
+                "si:" + req.subject().id());
+        byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(d);
+    }
+
+    private static AuditEventRequest request(String producerId, String action, String subjectId) {
+        return new AuditEventRequest(1, producerId, OffsetDateTime.parse("2025-08-29T14:55:21.123+02:00"),
+                action, "SUCCESS",
+                new AuditEventRequest.Subject("release", subjectId),
+                new AuditEventRequest.Actor("alice", "USER", List.of("deployer"), "tenant-a"),
+                null, null, null, null, null, null, null, null);
+    }
+
+    @Test
+    void asciiFieldsMatchLegacyKey() throws Exception {
+        AuditEventRequest req = request("producer-1", "DEPLOY", "rel-20250829-001");
+        MockHttpServletRequest http = new MockHttpServletRequest();
+        http.addHeader("X-Forwarded-For", "203.0.113.9, 10.0.0.1");
+        assertEquals(legacyKey(req, "203.0.113.9"), service.computeIdempotencyKey(req, http));
+    }
+
+    @Test
+    void nonBmpAndUnpairedSurrogatesMatchLegacyKey() throws Exception {
+        AuditEventRequest req = request("pr\u00F6d\u00FCcer-\uD83D\uDE00", "D\u00C9PLOY \uD83D\uDE80", "rel-\uD83D-\u65E5\u672C");
+        MockHttpServletRequest http = new MockHttpServletRequest();
+        http.setRemoteAddr("10.0.0.7");
+        assertEquals(legacyKey(req, "10.0.0.7"), service.computeIdempotencyKey(req, http));
+    }
+
+    @Test
+    void nullFieldMatchesLegacyKey() throws Exception {
+        AuditEventRequest req = request(null, "DEPLOY", null);
+        MockHttpServletRequest http = new MockHttpServletRequest();
+        http.setRemoteAddr("10.0.0.7");
+        assertEquals(legacyKey(req, "10.0.0.7"), service.computeIdempotencyKey(req, http));
+    }
+}
@@ -0,0 +1,111 @@
+package dev.controlplane.auditsink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import dev.controlplane.auditsink.store.AuditEventEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestSpillFileTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private IngestSpillFile spill() {
+        return new IngestSpillFile(dir, mapper,
+                new QuarantineFile(dir.resolve("quarantine.ndjson"), mapper, registry.counter("quarantined")));
+    }
+
+    private static AuditEventEntity event(int n) {
+        AuditEventEntity e = new AuditEventEntity();
+        e.id = UUID.randomUUID();
+        e.occurredAtUtc = OffsetDateTime.parse("2026-01-01T00:00:00Z").plusSeconds(n);
+        e.action = "A" + n;
+        e.idempotencyKey = "key-" + n;
+        return e;
+    }
+
+    private static List<String> actions(List<AuditEventEntity> events) {
+        return events.stream().map(e -> e.action).toList();
+    }
+
+    private long quarantined() throws IOException {
+        Path q = dir.resolve("quarantine.ndjson");
+        return Files.exists(q) ? Files.readAllLines(q).size() : 0;
+    }
+
+    @Test
+    void failedDrainStaysPendingAndResumesAfterStoredChunks() throws IOException {
+        IngestSpillFile spill = spill();
+        for (int i = 0; i < 5; i++) spill.append(event(i));
+
+        List<AuditEventEntity> stored = new ArrayList<>();
+        assertThrows(IOException.class, () -> spill.drain(2, chunk -> {
+            if (!stored.isEmpty()) throw new IOException("database down");
+            stored.addAll(chunk);
+        }));
+        assertTrue(spill.hasPending());
+
+        spill.drain(2, stored::addAll);
+        assertEquals(List.of("A0", "A1", "A2", "A3", "A4"), actions(stored));
+        assertFalse(spill.hasPending());
+        assertFalse(Files.exists(dir.resolve("ingest-spill.draining.ndjson")));
+    }
+
+    @Test
+    void quarantinesTornLineInsteadOfFailingEveryDrain() throws IOException {
+        IngestSpillFile crashed = spill();
+        crashed.append(event(0));
+        crashed.append(event(1));
+        Files.write(dir.resolve("ingest-spill.ndjson"), "{\"id\":\"torn".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        IngestSpillFile spill = spill();
+        assertTrue(spill.hasPending());
+        List<AuditEventEntity> stored = new ArrayList<>();
+        spill.drain(10, stored::addAll);
+
+        assertEquals(List.of("A0", "A1"), actions(stored));
+        assertEquals(1, quarantined());
+        assertFalse(spill.hasPending());
+    }
+
+    @Test
+    void resumesPastQuarantinedLineWithoutReplayingEarlierEvents() throws IOException {
+        IngestSpillFile spill = spill();
+        spill.append(event(0));
+        Files.write(dir.resolve("ingest-spill.ndjson"), "not json\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        spill.append(event(1));
+        spill.append(event(2));
+
+        List<AuditEventEntity> stored = new ArrayList<>();
+        assertThrows(IOException.class, () -> spill.drain(10, chunk -> {
+            if (!stored.isEmpty()) throw new IOException("database down");
+            stored.addAll(chunk);
+        }));
+        spill.drain(10, stored::addAll);
+
+        assertEquals(List.of("A0", "A1", "A2"), actions(stored));
+        assertEquals(1, quarantined());
+    }
+}
@@ -0,0 +1,130 @@
+package dev.controlplane.auditsink.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(SegmentLog.ReadResult r) {
+        return r.records().stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList();
+    }
+
+    private Path segment(long id) {
+        return dir.resolve(String.format("segment-%020d.log", id));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    @Test
+    void recoversForcedRecordsAfterCrash() throws IOException {
+        SegmentLog crashed = new SegmentLog(dir, SEGMENT_BYTES);
+        crashed.append(bytes("one"));
+        crashed.append(bytes("two"));
+        crashed.append(bytes("three"));
+        crashed.force();
+        // no close(): the process died after the fsync
+
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(List.of("one", "two", "three"), strings(log.read(SpoolPosition.START, 10)));
+            log.append(bytes("four"));
+            log.force();
+            assertEquals(List.of("one", "two", "three", "four"), strings(log.read(SpoolPosition.START, 10)));
+        } finally {
+            crashed.close();
+        }
+    }
+
+    @Test
+    void discardsTornTailAndAppendsOverIt() throws IOException {
+        int end;
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            log.append(bytes("alpha"));
+            log.append(bytes("beta"));
+            log.force();
+            end = log.forcedPosition().offset();
+        }
+        // a record whose header made it to disk but whose body did not
+        try (FileChannel ch = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).putInt(100).putInt(0x12345678).put(bytes("gam"));
+            ch.write(torn.flip(), end);
+        }
+
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(new SpoolPosition(0, end), log.forcedPosition());
+            assertEquals(List.of("alpha", "beta"), strings(log.read(SpoolPosition.START, 10)));
+            log.append(bytes("gamma"));
+            log.force();
+            assertEquals(List.of("alpha", "beta", "gamma"), strings(log.read(SpoolPosition.START, 10)));
+        }
+    }
+
+    @Test
+    void skipsRestOfSegmentAfterCorruptRecord() throws IOException {
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            log.append(bytes("good"));
+            log.append(bytes("flipped"));
+            log.append(bytes("after"));
+            log.force();
+            // flip a body byte of the second record, leaving its header intact
+            try (FileChannel ch = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+                ch.write(ByteBuffer.wrap(bytes("X")), 8 + 4 + 8);
+            }
+            SegmentLog.ReadResult r = log.read(SpoolPosition.START, 10);
+            assertEquals(List.of("good"), strings(r));
+            assertEquals(log.forcedPosition().segment(), r.next().segment());
+        }
+    }
+
+    @Test
+    void resumesFromCheckpointAcrossSegmentsAndDeletesReplayedOnes() throws IOException {
+        byte[] record = new byte[1000];
+        SpoolPosition next;
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 10; i++) {
+                record[0] = (byte) i;
+                log.append(record);
+            }
+            log.force();
+            assertEquals(3, segmentCount());
+
+            SegmentLog.ReadResult first = log.read(SpoolPosition.START, 5);
+            assertEquals(5, first.records().size());
+            next = first.next();
+            log.checkpoint(next);
+            assertEquals(2, segmentCount());
+        }
+
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES)) {
+            assertEquals(next, log.readCheckpoint());
+            SegmentLog.ReadResult rest = log.read(log.readCheckpoint(), 10);
+            assertEquals(5, rest.records().size());
+            for (int i = 0; i < 5; i++) assertEquals(5 + i, rest.records().get(i)[0]);
+            assertEquals(log.forcedPosition(), rest.next());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package dev.controlplane.auditsink.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Each H2 database holds a one-row {@code origin} table naming itself, so a read shows which
+ * database served it. The health check interval is long enough that only the initial check runs;
+ * it checks replicas in order, so once the last one has a lag reading every replica has been checked.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT lag_seconds FROM origin";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+
+    @AfterEach
+    void close() throws Exception {
+        if (routing != null) routing.close();
+    }
+
+    private static HikariDataSource database(String name, double lagSeconds) throws SQLException {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(name);
+        ds.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        ds.setUsername("sa");
+        ds.setPassword("");
+        ds.setMaximumPoolSize(2);
+        try (Connection c = ds.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE origin(name VARCHAR(32), lag_seconds DOUBLE PRECISION)");
+            st.execute("CREATE TABLE written(id INT)");
+            st.execute("INSERT INTO origin VALUES ('" + name + "', " + lagSeconds + ")");
+        }
+        return ds;
+    }
+
+    private ReplicaRoutingDataSource route(HikariDataSource primary, HikariDataSource... replicaPools) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new ReplicaRoutingDataSource.Replica(pool.getPoolName(), pool, LAG_QUERY, registry));
+        }
+        routing = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(5), Duration.ofHours(1), registry);
+        ReplicaRoutingDataSource.Replica last = replicas.get(replicas.size() - 1);
+        await(() -> !Double.isNaN(last.lagSeconds));
+        return routing;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("replica health check did not run");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static String origin(ReplicaRoutingDataSource ds) {
+        try (Connection c = ds.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT name FROM origin")) {
+            rs.next();
+            return rs.getString(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String read(ReplicaRoutingDataSource ds) {
+        return ReadRouting.onReplica(() -> origin(ds));
+    }
+
+    private static long writtenRows(HikariDataSource db) throws SQLException {
+        try (Connection c = db.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM written")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private double reads(String target) {
+        return registry.counter("audit.replica.reads", "target", target).count();
+    }
+
+    @Test
+    void readsGoToReplicaAndWritesToPrimary() throws SQLException {
+        HikariDataSource primary = database("primary", 0);
+        HikariDataSource replica = database("r1", 0);
+        ReplicaRoutingDataSource ds = route(primary, replica);
+
+        assertEquals("r1", read(ds));
+        assertEquals("primary", origin(ds));
+        try (Connection c = ds.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO written VALUES (1)");
+        }
+
+        assertEquals(1, writtenRows(primary));
+        assertEquals(0, writtenRows(replica));
+        assertEquals(1, reads("r1"));
+        assertEquals(0, reads("primary"));
+    }
+
+    @Test
+    void readsRotateOverHealthyReplicas() throws SQLException {
+        ReplicaRoutingDataSource ds = route(database("primary", 0), database("r1", 0), database("r2", 0));
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) served.add(read(ds));
+
+        assertEquals(List.of("r1", "r2", "r1", "r2"), served);
+        assertEquals(2, reads("r1"));
+        assertEquals(2, reads("r2"));
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() throws SQLException {
+        HikariDataSource lagging = database("r1", 30);
+        ReplicaRoutingDataSource ds = route(database("primary", 0), lagging, database("r2", 0));
+
+        assertEquals("r2", read(ds));
+        assertEquals("r2", read(ds));
+        assertEquals(0, reads("r1"));
+        assertEquals(0, registry.get("audit.replica.healthy").tag("target", "r1").gauge().value());
+    }
+
+    @Test
+    void readsFallBackToPrimaryWhenReplicaIsDown() throws SQLException {
+        HikariDataSource replica = database("r1", 0);
+        ReplicaRoutingDataSource ds = route(database("primary", 0), replica);
+        assertEquals("r1", read(ds));
+
+        // the replica goes away between health checks: the failed connection marks it unhealthy
+        replica.close();
+        assertEquals("primary", read(ds));
+        assertEquals("primary", read(ds));
+
+        assertEquals(1, reads("r1"));
+        assertEquals(2, reads("primary"));
+        assertEquals(2, registry.counter("audit.replica.fallback").count());
+        assertEquals(0, registry.get("audit.replica.healthy").tag("target", "r1").gauge().value());
+    }
+
+    @Test
+    void replicaFailingValidationIsSkipped() throws SQLException {
+        HikariDataSource broken = database("r1", 0);
+        try (Connection c = broken.getConnection(); Statement st = c.createStatement()) {
+            st.execute("DROP TABLE origin");
+        }
+        ReplicaRoutingDataSource ds = route(database("primary", 0), broken, database("r2", 0));
+
+        assertEquals("r2", read(ds));
+        assertEquals("r2", read(ds));
+        assertEquals(0, reads("r1"));
+        assertEquals(0, registry.get("audit.replica.healthy").tag("target", "r1").gauge().value());
+    }
+}
@@ -0,0 +1,65 @@
+package dev.controlplane.auditsink.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HashingUtilTest {
+
+    /** The original implementation: hash the String's UTF-8 bytes in one go. */
+    static String legacy(String s) throws Exception {
+        byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(d);
+    }
+
+    static Stream<String> inputs() {
+        return Stream.of(
+                "",
+                "p:producer-1|ip:203.0.113.9|ts:2025-08-29T14:55:21Z|a:DEPLOY|st:release|si:rel-1",
+                "caf\u00E9 \u00DF \u00F1",
+                "\u65E5\u672C\u8A9E\u306E\u30C6\u30AD\u30B9\u30C8",
+                "rocket \uD83D\uDE80 and \uD83D\uDE00",
+                "lone high \uD83D then text",
+                "lone low \uDE00 first",
+                "ends with high \uD83D",
+                // multi-byte characters straddling the builder's internal buffer flushes
+                "x".repeat(509) + "\uD83D\uDE80" + "\u00E9".repeat(300) + "\u65E5".repeat(200));
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void sha256Base64MatchesGetBytes(String s) throws Exception {
+        assertEquals(legacy(s), HashingUtil.sha256Base64(s));
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void builderMatchesHashOfConcatenation(String s) throws Exception {
+        int mid = s.length() / 2;
+        String expected = legacy("p:" + s.substring(0, mid) + "|" + s.substring(mid));
+        String actual = HashingUtil.sha256().append("p:").append(s.substring(0, mid)).append("|")
+                .append(s.substring(mid)).digestBase64();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void nullFieldHashesLikeStringConcatenation() throws Exception {
+        String field = null;
+        assertEquals(legacy("si:" + field), HashingUtil.sha256().append("si:").append(field).digestBase64());
+        assertNull(HashingUtil.sha256Base64(null));
+    }
+
+    @Test
+    void builderIsResetBetweenUses() throws Exception {
+        HashingUtil.sha256().append("left over");
+        assertEquals(legacy("abc"), HashingUtil.sha256().append("abc").digestBase64());
+    }
+}